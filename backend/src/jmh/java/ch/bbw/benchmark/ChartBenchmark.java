@@ -0,0 +1,81 @@
+package ch.bbw.benchmark;
+
+import ch.bbw.dataset.CityDataset;
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.enums.ChartFormat;
+import ch.bbw.enums.Metric;
+import ch.bbw.service.ChartService;
+import ch.bbw.util.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rendering the city chart as PNG and as SVG, with and without the chart cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChartBenchmark {
+
+  private List<CityResponse> cities;
+  private ChartService uncachedChartService;
+  private ChartService cachedChartService;
+
+  /**
+   * Loads the biggest cities of one country from the fixture.
+   *
+   * @throws IOException if the fixture cannot be parsed
+   */
+  @Setup
+  public void setUp() throws IOException {
+    CityDataset.Builder builder = new CityDataset.Builder();
+    new JsonArrayStreamer(new ObjectMapper()).stream(new ByteArrayInputStream(Fixtures.read(Fixtures.CITIES)), "data",
+        CityResponse.class, JsonArrayStreamer.ElementFilter.acceptAll(), builder::add);
+    cities = builder.build().topK("United States", ChartService.CHART_CITIES, Metric.POPULATION, null, false);
+    uncachedChartService = new ChartService(0, 1, 1, new SimpleMeterRegistry());
+    cachedChartService = new ChartService(16, 1, 1, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Stops the rendering threads of the chart services.
+   */
+  @TearDown
+  public void tearDown() {
+    uncachedChartService.close();
+    cachedChartService.close();
+  }
+
+  @Benchmark
+  public ChartService.Chart renderPng() {
+    return uncachedChartService.getCityChart(cities, ChartFormat.PNG);
+  }
+
+  @Benchmark
+  public ChartService.Chart renderSvg() {
+    return uncachedChartService.getCityChart(cities, ChartFormat.SVG);
+  }
+
+  @Benchmark
+  public ChartService.Chart cachedPng() {
+    return cachedChartService.getCityChart(cities, ChartFormat.PNG);
+  }
+}
@@ -0,0 +1,75 @@
+package ch.bbw.benchmark;
+
+import ch.bbw.dataset.CityDataset;
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.enums.Metric;
+import ch.bbw.enums.SortOrder;
+import ch.bbw.util.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the in-memory part of CityService.getCitiesByCountry for every sort order:
+ * looking up the country in a loaded dataset and reading every row the way the page template does.
+ * Also benchmarks selecting the biggest cities with the top-k selector, which does not depend on the sort order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityQueryBenchmark {
+
+  @Param({"nameAsc", "nameDesc", "populationAsc", "populationDesc", "yearAsc", "yearDesc"})
+  public String sortOrder;
+
+  @Param({"United States", "Switzerland"})
+  public String country;
+
+  private CityDataset dataset;
+
+  /**
+   * Loads the city fixture into a dataset.
+   *
+   * @throws IOException if the fixture cannot be parsed
+   */
+  @Setup
+  public void setUp() throws IOException {
+    CityDataset.Builder builder = new CityDataset.Builder();
+    new JsonArrayStreamer(new ObjectMapper()).stream(new ByteArrayInputStream(Fixtures.read(Fixtures.CITIES)), "data",
+        CityResponse.class, JsonArrayStreamer.ElementFilter.acceptAll(), builder::add);
+    dataset = builder.build();
+  }
+
+  @Benchmark
+  public void getCitiesByCountry(Blackhole blackhole) {
+    for (CityResponse city : dataset.getCities(country, SortOrder.fromValue(sortOrder))) {
+      blackhole.consume(city.getCity());
+      blackhole.consume(city.getPopulationCounts().getFirst().getValue());
+      blackhole.consume(city.getPopulationCounts().getFirst().getYear());
+    }
+  }
+
+  @Benchmark
+  public void getTopCities(Blackhole blackhole) {
+    for (CityResponse city : dataset.topK(country, 5, Metric.POPULATION, null, false)) {
+      blackhole.consume(city.getCity());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package ch.bbw.benchmark;
+
+import ch.bbw.dataset.CityDataset;
+import ch.bbw.dtos.ApiCityResponse;
+import ch.bbw.dtos.ApiInfoResponse;
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.dtos.PopulationCountResponse;
+import ch.bbw.util.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks binding the upstream payloads, including the StringToNumberDeserializer family.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializationBenchmark {
+
+  private ObjectMapper objectMapper;
+  private JsonArrayStreamer jsonArrayStreamer;
+  private byte[] cities;
+  private byte[] countryInfo;
+  private byte[] populationCounts;
+
+  /**
+   * Loads the fixtures and extracts the population counts of all cities into a separate document.
+   *
+   * @throws IOException if a fixture cannot be parsed
+   */
+  @Setup
+  public void setUp() throws IOException {
+    objectMapper = new ObjectMapper();
+    jsonArrayStreamer = new JsonArrayStreamer(objectMapper);
+    cities = Fixtures.read(Fixtures.CITIES);
+    countryInfo = Fixtures.read(Fixtures.COUNTRY_INFO);
+    populationCounts = objectMapper.writeValueAsBytes(objectMapper.readTree(cities).findValues("populationCounts"));
+  }
+
+  @Benchmark
+  public ApiCityResponse bindCities() throws IOException {
+    return objectMapper.readValue(cities, ApiCityResponse.class);
+  }
+
+  @Benchmark
+  public CityDataset streamCitiesIntoDataset() throws IOException {
+    CityDataset.Builder builder = new CityDataset.Builder();
+    jsonArrayStreamer.stream(new ByteArrayInputStream(cities), "data", CityResponse.class,
+        JsonArrayStreamer.ElementFilter.acceptAll(), builder::add);
+    return builder.build();
+  }
+
+  @Benchmark
+  public void streamCitiesOfOneCountry(Blackhole blackhole) throws IOException {
+    jsonArrayStreamer.stream(new ByteArrayInputStream(cities), "data", CityResponse.class,
+        new JsonArrayStreamer.ElementFilter("country", "France"::equals), blackhole::consume);
+  }
+
+  @Benchmark
+  public ApiInfoResponse bindCountryInfo() throws IOException {
+    return objectMapper.readValue(countryInfo, ApiInfoResponse.class);
+  }
+
+  @Benchmark
+  public PopulationCountResponse[][] bindPopulationCounts() throws IOException {
+    return objectMapper.readValue(populationCounts, PopulationCountResponse[][].class);
+  }
+}
@@ -0,0 +1,34 @@
+package ch.bbw.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Utility class for loading the recorded upstream responses used by the benchmarks.
+ */
+final class Fixtures {
+
+  static final String CITIES = "fixtures/cities.json";
+  static final String COUNTRY_INFO = "fixtures/country-info.json";
+
+  private Fixtures() {
+  }
+
+  /**
+   * Reads a fixture from the classpath.
+   *
+   * @param name the classpath location of the fixture
+   * @return the content of the fixture
+   */
+  static byte[] read(String name) {
+    try (InputStream inputStream = Fixtures.class.getClassLoader().getResourceAsStream(name)) {
+      if (inputStream == null) {
+        throw new IllegalStateException("Fixture not found: " + name);
+      }
+      return inputStream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package ch.bbw.benchmark;
+
+import ch.bbw.dataset.CityDataset;
+import ch.bbw.dataset.CountryInfoTable;
+import ch.bbw.dtos.ApiInfoResponse;
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.dtos.SuggestionResponse;
+import ch.bbw.util.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the in-memory part of /api/suggest for a prefix query, a query with a typo and one matching nothing.
+ * Sampled, so that the reported percentiles show the tail latency of single lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestBenchmark {
+
+  @Param({"zur", "Swtizerland", "Sao Pao", "qqqqqq"})
+  public String query;
+
+  private CityDataset cities;
+  private CountryInfoTable countries;
+
+  /**
+   * Loads the city and country information fixtures.
+   *
+   * @throws IOException if a fixture cannot be parsed
+   */
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    CityDataset.Builder builder = new CityDataset.Builder();
+    new JsonArrayStreamer(objectMapper).stream(new ByteArrayInputStream(Fixtures.read(Fixtures.CITIES)), "data",
+        CityResponse.class, JsonArrayStreamer.ElementFilter.acceptAll(), builder::add);
+    cities = builder.build();
+    countries = CountryInfoTable.of(
+        objectMapper.readValue(Fixtures.read(Fixtures.COUNTRY_INFO), ApiInfoResponse.class).getData(), Duration.ZERO);
+  }
+
+  @Benchmark
+  public List<SuggestionResponse> suggestCountries() {
+    return countries.suggest(query, 10);
+  }
+
+  @Benchmark
+  public List<SuggestionResponse> suggestCities() {
+    return cities.suggest(query, 10);
+  }
+}
@@ -0,0 +1,58 @@
+package ch.bbw.config;
+
+import ch.bbw.util.APIClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the single API client all services talk to the upstream API with, so that they share one HTTP client,
+ * its connection pool and the client's circuit breaker.
+ */
+@Configuration
+public class UpstreamConfig {
+
+  /**
+   * Creates the executor the upstream HTTP client and response parsing run on.
+   * Streamed responses block while reading the body, so every task gets its own virtual thread.
+   *
+   * @return the executor, shut down with the application context
+   */
+  @Bean(destroyMethod = "close")
+  public ExecutorService upstreamExecutor() {
+    return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("upstream-", 0).factory());
+  }
+
+  /**
+   * Creates the shared HTTP client for the upstream API, preferring HTTP/2 and counting the connections it opens.
+   *
+   * @param upstream         the upstream configuration
+   * @param upstreamExecutor the executor the client runs on
+   * @param meterRegistry    the registry the connection metric is recorded in
+   * @return the HTTP client, closed with the application context
+   */
+  @Bean(destroyMethod = "close")
+  public HttpClient upstreamHttpClient(UpstreamProperties upstream, ExecutorService upstreamExecutor,
+                                       MeterRegistry meterRegistry) {
+    return APIClient.newHttpClient(upstream, upstreamExecutor, meterRegistry);
+  }
+
+  /**
+   * Creates the shared API client.
+   *
+   * @param upstream           the upstream configuration
+   * @param upstreamHttpClient the HTTP client to send requests with
+   * @param upstreamExecutor   the executor responses are parsed on
+   * @param meterRegistry      the registry request metrics are recorded in
+   * @return the API client
+   */
+  @Bean
+  public APIClient apiClient(UpstreamProperties upstream, HttpClient upstreamHttpClient,
+                             ExecutorService upstreamExecutor, MeterRegistry meterRegistry) {
+    return new APIClient(upstream, upstreamHttpClient, upstreamExecutor, meterRegistry);
+  }
+}
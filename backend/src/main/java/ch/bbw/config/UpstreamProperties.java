@@ -0,0 +1,92 @@
+package ch.bbw.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the upstream countriesnow.space API and of how failures talking to it are handled.
+ */
+@Data
+@ConfigurationProperties(prefix = "country-stats.upstream")
+public class UpstreamProperties {
+
+  /**
+   * The base URL of the API.
+   */
+  String baseUrl = "https://countriesnow.space/api/v0.1";
+
+  /**
+   * The time after which connecting to the API fails.
+   */
+  Duration connectTimeout = Duration.ofSeconds(10);
+
+  /**
+   * The time after which a request fails if no response has been received, unless the caller sets its own.
+   */
+  Duration requestTimeout = Duration.ofSeconds(10);
+
+  Retry retry = new Retry();
+  Hedge hedge = new Hedge();
+  CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+  /**
+   * Retrying idempotent requests that failed with an I/O error, 429 or 5xx status, with jittered
+   * exponential backoff.
+   */
+  @Data
+  public static class Retry {
+
+    /**
+     * The maximum number of attempts per request, including the first one.
+     */
+    int maxAttempts = 3;
+
+    /**
+     * The backoff before the first retry, doubled for every further retry.
+     */
+    Duration baseDelay = Duration.ofMillis(200);
+
+    /**
+     * The upper bound of the backoff.
+     */
+    Duration maxDelay = Duration.ofSeconds(2);
+  }
+
+  /**
+   * Sending a duplicate of a GET request when the first one takes longer than the endpoint's 95th percentile latency.
+   */
+  @Data
+  public static class Hedge {
+
+    boolean enabled = true;
+
+    /**
+     * The minimum time to wait before hedging, regardless of the observed latencies.
+     */
+    Duration minDelay = Duration.ofMillis(100);
+
+    /**
+     * The number of latency samples of an endpoint required before its requests are hedged.
+     */
+    int minSamples = 20;
+  }
+
+  /**
+   * Failing fast while the API keeps failing.
+   */
+  @Data
+  public static class CircuitBreaker {
+
+    /**
+     * The number of consecutive failed requests that opens the circuit.
+     */
+    int failureThreshold = 5;
+
+    /**
+     * The time the circuit stays open before a trial request is let through.
+     */
+    Duration openDuration = Duration.ofSeconds(30);
+  }
+}
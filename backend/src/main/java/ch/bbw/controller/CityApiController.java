@@ -0,0 +1,198 @@
+package ch.bbw.controller;
+
+import ch.bbw.dataset.CityColumns;
+import ch.bbw.dataset.CityCursor;
+import ch.bbw.dataset.CityPage;
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.enums.Metric;
+import ch.bbw.enums.SortOrder;
+import ch.bbw.service.CityService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Controller for the JSON API of the city dataset.
+ */
+@RestController
+@RequestMapping("/api/countries")
+public class CityApiController {
+
+  private static final int MAX_LIMIT = 500;
+  private static final int MAX_TOP = 100;
+
+  private final CityService cityService;
+  private final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * Constructor for CityApiController.
+   *
+   * @param cityService the service for city-related operations
+   */
+  @Autowired
+  public CityApiController(CityService cityService) {
+    this.cityService = cityService;
+  }
+
+  /**
+   * Returns one page of the cities of a country. The page is written with a streaming JSON generator straight from
+   * the city columns, so the response costs memory proportional to the page only.
+   *
+   * @param country   the name of the country
+   * @param sortOrder the sort order (nameAsc, nameDesc, populationAsc, populationDesc, yearAsc, yearDesc);
+   *                  the order delivered by the API if omitted
+   * @param year      the year to view the cities as of, sorting by their latest population count up to it and
+   *                  listing only the counts up to it; all counts if omitted
+   * @param limit     the maximum number of cities of the page, at most 500
+   * @param cursor    the nextCursor of the previous page, omitted for the first page
+   * @return a future of the page response, 404 if the country is unknown
+   */
+  @GetMapping("/{country}/cities")
+  public CompletableFuture<ResponseEntity<StreamingResponseBody>> getCities(
+      @PathVariable("country") String country,
+      @RequestParam(value = "sortOrder", required = false) String sortOrder,
+      @RequestParam(value = "year", required = false) Integer year,
+      @RequestParam(value = "limit", defaultValue = "50") int limit,
+      @RequestParam(value = "cursor", required = false) String cursor) {
+
+    SortOrder order = sortOrder == null ? null : SortOrder.fromValue(sortOrder);
+    if (sortOrder != null && order == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sortOrder: " + sortOrder);
+    }
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+    }
+    CityCursor after;
+    try {
+      after = cursor == null ? null : CityCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+    }
+
+    return cityService.getCityPageAsync(country, order, year, after, limit)
+        .exceptionally(error -> {
+          Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+          if (cause instanceof IllegalArgumentException) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, cause.getMessage(), cause);
+          }
+          throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        })
+        .thenApply(page -> page == null
+            ? ResponseEntity.notFound().build()
+            : ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> {
+                  try (JsonGenerator generator = jsonFactory.createGenerator(output, JsonEncoding.UTF8)) {
+                    writePage(generator, country, order, page);
+                  }
+                }));
+  }
+
+  /**
+   * Returns the k cities of a country with the largest or smallest value of a metric.
+   * The cities are selected with a bounded heap in O(n log k) rather than by sorting.
+   *
+   * @param country the name of the country
+   * @param k       the maximum number of cities, at most 100
+   * @param metric  the metric to rank by (population, year)
+   * @param year    the year to rank the cities as of, by their latest population count up to it and listing only
+   *                the counts up to it; each city's latest population count if omitted
+   * @param order   desc for the largest values, asc for the smallest
+   * @return a future of the selected cities, best first, 404 if the country is unknown
+   */
+  @GetMapping("/{country}/cities/top")
+  public CompletableFuture<ResponseEntity<List<CityResponse>>> getTopCities(
+      @PathVariable("country") String country,
+      @RequestParam(value = "k", defaultValue = "10") int k,
+      @RequestParam(value = "metric", defaultValue = "population") String metric,
+      @RequestParam(value = "year", required = false) Integer year,
+      @RequestParam(value = "order", defaultValue = "desc") String order) {
+
+    Metric rankBy = Metric.fromValue(metric);
+    if (rankBy == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown metric: " + metric);
+    }
+    if (!order.equals("asc") && !order.equals("desc")) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "order must be asc or desc");
+    }
+    if (k < 1 || k > MAX_TOP) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "k must be between 1 and " + MAX_TOP);
+    }
+
+    return cityService.getTopCitiesAsync(country, k, rankBy, year, order.equals("asc"))
+        .thenApply(cities -> cities == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(cities));
+  }
+
+  /**
+   * Writes a page of cities as JSON.
+   *
+   * @param generator the generator to write to
+   * @param country   the requested country
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param page      the page
+   * @throws IOException if an I/O error occurs
+   */
+  private static void writePage(JsonGenerator generator, String country, SortOrder sortOrder, CityPage page)
+      throws IOException {
+    CityColumns columns = page.columns();
+
+    generator.writeStartObject();
+    generator.writeStringField("country", country);
+    generator.writeStringField("sortOrder", sortOrder == null ? null : sortOrder.getValue());
+    generator.writeNumberField("total", page.total());
+    generator.writeArrayFieldStart("cities");
+    for (int city : page.cities()) {
+      generator.writeStartObject();
+      generator.writeStringField("city", columns.cityName(city));
+      generator.writeStringField("country", columns.country(columns.countryCode(city)));
+      generator.writeArrayFieldStart("populationCounts");
+      for (int count = columns.seriesStart(city, page.year()); count < columns.seriesEnd(city); count++) {
+        generator.writeStartObject();
+        writeNumberOrNull(generator, "year", columns.year(count), CityColumns.NO_YEAR);
+        writeNumberOrNull(generator, "value", columns.value(count), CityColumns.NO_VALUE);
+        generator.writeStringField("sex", columns.sex(count));
+        generator.writeStringField("reliabilty", columns.reliability(count));
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+    generator.writeStringField("nextCursor", page.next() == null ? null : page.next().encode());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Writes a numeric field, or null if the value is the column's missing marker.
+   *
+   * @param generator the generator to write to
+   * @param field     the field name
+   * @param value     the value
+   * @param missing   the marker of a missing value
+   * @throws IOException if an I/O error occurs
+   */
+  private static void writeNumberOrNull(JsonGenerator generator, String field, long value, long missing)
+      throws IOException {
+    if (value == missing) {
+      generator.writeNullField(field);
+    } else {
+      generator.writeNumberField(field, value);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package ch.bbw.controller;
+
+import ch.bbw.dataset.CountryAggregate;
+import ch.bbw.dataset.CountrySummary;
+import ch.bbw.dtos.CountryComparisonResponse;
+import ch.bbw.dtos.CountryInfoResponse;
+import ch.bbw.service.CityService;
+import ch.bbw.service.CountryInfoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller for the JSON API of country statistics.
+ */
+@RestController
+@RequestMapping("/api/countries")
+public class CountryApiController {
+
+  private static final int MAX_COUNTRIES = 100;
+  private static final int MAX_TOP = 20;
+
+  private final CityService cityService;
+  private final CountryInfoService countryInfoService;
+
+  /**
+   * Constructor for CountryApiController.
+   *
+   * @param cityService        the service for city-related operations
+   * @param countryInfoService the service for country info-related operations
+   */
+  @Autowired
+  public CountryApiController(CityService cityService, CountryInfoService countryInfoService) {
+    this.cityService = cityService;
+    this.countryInfoService = countryInfoService;
+  }
+
+  /**
+   * Returns the aggregate statistics of a country's cities, which are precomputed when the dataset is loaded.
+   *
+   * @param country the name of the country
+   * @return a future of the aggregate response, 404 if the country is unknown
+   */
+  @GetMapping("/{country}/aggregate")
+  public CompletableFuture<ResponseEntity<CountryAggregate>> getAggregate(@PathVariable("country") String country) {
+    return cityService.getCountryAggregateAsync(country)
+        .thenApply(aggregate -> aggregate == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(aggregate));
+  }
+
+  /**
+   * Compares several countries: their information, city count, population total and largest cities.
+   * The city statistics of all countries are computed in a single pass over the city dataset.
+   *
+   * @param countries the names or ISO codes of the countries, at most 100
+   * @param top       the number of largest cities per country, at most 20
+   * @return a future of one comparison entry per distinct requested country, in request order
+   */
+  @GetMapping("/compare")
+  public CompletableFuture<List<CountryComparisonResponse>> compareCountries(
+      @RequestParam("countries") List<String> countries,
+      @RequestParam(value = "top", defaultValue = "5") int top) {
+
+    List<String> requested = List.copyOf(new LinkedHashSet<>(countries.stream().map(String::trim).toList()));
+    if (requested.isEmpty() || requested.size() > MAX_COUNTRIES) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_COUNTRIES + " countries required");
+    }
+    if (top < 0 || top > MAX_TOP) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "top must be between 0 and " + MAX_TOP);
+    }
+
+    List<CompletableFuture<CountryInfoResponse>> infoFutures =
+        requested.stream().map(countryInfoService::getCountryInfoAsync).toList();
+
+    return CompletableFuture.allOf(infoFutures.toArray(CompletableFuture[]::new)).thenCompose(ignored -> {
+      // Countries requested by ISO code are looked up in the city dataset by their name
+      List<CountryInfoResponse> infos = infoFutures.stream().map(CompletableFuture::join).toList();
+      List<String> names = new ArrayList<>(requested.size());
+      for (int i = 0; i < requested.size(); i++) {
+        names.add(infos.get(i) == null ? requested.get(i) : infos.get(i).getName());
+      }
+
+      return cityService.summarizeCountriesAsync(names, top).thenApply(summaries -> {
+        List<CountryComparisonResponse> comparisons = new ArrayList<>(requested.size());
+        for (int i = 0; i < requested.size(); i++) {
+          CountryComparisonResponse comparison = new CountryComparisonResponse();
+          comparison.setCountry(requested.get(i));
+          comparison.setCountryInfo(infos.get(i));
+
+          CountrySummary summary = summaries.get(names.get(i));
+          if (summary != null) {
+            comparison.setCityCount(summary.cityCount());
+            comparison.setTotalPopulation(summary.totalPopulation());
+            comparison.setTopCities(summary.topCities());
+          }
+          comparisons.add(comparison);
+        }
+        return comparisons;
+      });
+    });
+  }
+}
@@ -2,16 +2,56 @@ package ch.bbw.controller;
 
 import ch.bbw.dtos.CityResponse;
 import ch.bbw.dtos.CountryInfoResponse;
+import ch.bbw.enums.ChartFormat;
+import ch.bbw.enums.Metric;
+import ch.bbw.service.ChartService;
 import ch.bbw.service.CityService;
 import ch.bbw.service.CountryInfoService;
+import ch.bbw.util.HttpHeaderValues;
+import ch.bbw.util.PageCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.ContentCachingResponseWrapper;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * Controller for handling country statistics related requests.
@@ -20,19 +60,55 @@ import java.util.List;
 @RequestMapping("/country-stats")
 public class CountryController {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CountryController.class);
+
+  /**
+   * The key of a rendered country statistics page: everything the page is rendered from.
+   *
+   * @param cityVersion the version of the city dataset
+   * @param infoVersion the version of the country information table
+   * @param country     the requested country
+   * @param sortOrder   the requested sort order
+   * @param year        the requested year, or null for the latest population counts
+   */
+  private record PageKey(long cityVersion, long infoVersion, String country, String sortOrder, Integer year) {
+  }
+
   private final CityService cityService;
   private final CountryInfoService countryInfoService;
+  private final ChartService chartService;
+  private final ViewResolver viewResolver;
+  private final PageCache<PageKey> pageCache;
+  private final AtomicReference<long[]> pageVersions = new AtomicReference<>(new long[]{-1, -1});
+  private final Duration requestDeadline;
+  private final Duration chartMaxAge;
 
   /**
    * Constructor for CountryController.
    *
    * @param cityService         the service for city-related operations
    * @param countryInfoService  the service for country info-related operations
+   * @param chartService        the service for rendering charts
+   * @param viewResolver        the resolver of the Thymeleaf views, used to render pages into the page cache
+   * @param pageCacheSize       the maximum total size of the gzip-compressed pages kept in memory
+   * @param meterRegistry       the registry the page cache metrics are recorded in
+   * @param requestDeadline     the time after which a page is rendered with whatever results are available
+   * @param chartMaxAge         the time browsers and proxies may reuse a chart without revalidating it
    */
   @Autowired
-  public CountryController(CityService cityService, CountryInfoService countryInfoService) {
+  public CountryController(CityService cityService, CountryInfoService countryInfoService, ChartService chartService,
+                           @Qualifier("thymeleafViewResolver") ViewResolver viewResolver,
+                           @Value("${country-stats.page-cache.max-size:32MB}") DataSize pageCacheSize,
+                           MeterRegistry meterRegistry,
+                           @Value("${country-stats.request-deadline:5s}") Duration requestDeadline,
+                           @Value("${country-stats.chart.max-age:1h}") Duration chartMaxAge) {
     this.cityService = cityService;
     this.countryInfoService = countryInfoService;
+    this.chartService = chartService;
+    this.viewResolver = viewResolver;
+    this.pageCache = new PageCache<>("pages", pageCacheSize.toBytes(), meterRegistry);
+    this.requestDeadline = requestDeadline;
+    this.chartMaxAge = chartMaxAge;
   }
 
   /**
@@ -47,32 +123,264 @@ public class CountryController {
 
   /**
    * Handles requests to fetch and display country statistics and cities.
+   * The country information and the cities are composed as non-blocking futures,
+   * so the request thread is released while they complete. Whatever is not available by the request deadline
+   * is left out of the page.
+   * Complete pages are rendered once per dataset version, country, sort order and year and served gzip-compressed
+   * from the page cache; requests carrying the page's current ETag in If-None-Match are answered with 304.
+   * Pages missing results or showing stale data are not cached.
    *
-   * @param country   the name of the country
-   * @param sortOrder the sort order for the city list (default is nameAsc)
-   * @param model     the model to pass data to the view
-   * @return the name of the view to be rendered
+   * @param country        the name of the country
+   * @param sortOrder      the sort order for the city list (default is nameAsc)
+   * @param year           the year to show the populations as of, or null for the latest population counts
+   * @param ifNoneMatch    the ETags of the pages the client already has, if any
+   * @param acceptEncoding the content encodings the client accepts, if any
+   * @param model          the model to pass data to the view
+   * @param request        the request, used to render the view
+   * @param response       the response, used to render the view
+   * @return a future of the rendered page, or of an error page with status 503 if neither the country information
+   *     nor the cities are available
    */
   @GetMapping
-  public String getCountryStats(
+  public CompletableFuture<ResponseEntity<byte[]>> getCountryStats(
       @RequestParam("country") String country,
       @RequestParam(value = "sortOrder", defaultValue = "nameAsc") String sortOrder,
-      Model model) {
+      @RequestParam(value = "year", required = false) Integer year,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      Model model, HttpServletRequest request, HttpServletResponse response) {
 
-    try {
-      CountryInfoResponse countryInfo = countryInfoService.getCountryInfo(country);
-      List<CityResponse> filteredCities = cityService.getCitiesByCountry(country, sortOrder);
-      String cityChart = cityService.getCityChart(filteredCities);
+    PageKey key = getPageKey(country, sortOrder, year);
+    PageCache.Page cached = key == null ? null : pageCache.get(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(toResponse(cached, ifNoneMatch, acceptEncoding));
+    }
 
+    AtomicBoolean partial = new AtomicBoolean();
+    CompletableFuture<CountryInfoResponse> countryInfoFuture =
+        withDeadline(countryInfoService.getCountryInfoAsync(country), "country information", partial);
+    CompletableFuture<List<CityResponse>> citiesFuture =
+        withDeadline(cityService.getCitiesByCountryAsync(country, sortOrder, year), "cities", partial);
+    CompletableFuture<List<CityResponse>> chartCitiesFuture =
+        withDeadline(getChartCitiesAsync(country, year), "chart cities", partial);
+
+    return CompletableFuture.allOf(countryInfoFuture, citiesFuture, chartCitiesFuture).thenApply(ignored -> {
+      CountryInfoResponse countryInfo = countryInfoFuture.join();
+      List<CityResponse> filteredCities = citiesFuture.join();
+      List<CityResponse> chartCities = chartCitiesFuture.join();
+
+      if (countryInfo == null && filteredCities == null) {
+        model.addAttribute("error", "Unable to fetch cities at this time.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+            .body(render("error", model, request, response));
+      }
+
+      LocalDateTime staleSince = getStaleSince();
       model.addAttribute("countryInfo", countryInfo);
       model.addAttribute("country", country);
+      model.addAttribute("year", year);
       model.addAttribute("cities", filteredCities);
-      model.addAttribute("cityChart", cityChart);
+      model.addAttribute("cityChartKey", chartCities == null ? null : chartService.getChartKey(chartCities));
+      model.addAttribute("staleSince", staleSince);
+      byte[] content = render("country-stats", model, request, response);
+
+      boolean cacheable = key != null && !partial.get() && staleSince == null
+          && key.equals(getPageKey(country, sortOrder, year));
+      PageCache.Page page = cacheable ? pageCache.put(key, content) : PageCache.of(content);
+      return toResponse(page, ifNoneMatch, acceptEncoding);
+    });
+  }
+
+  /**
+   * Serves the population chart of a country as PNG or SVG image.
+   * Charts are identified by a content hash of their data and their format, which is sent as strong ETag;
+   * requests carrying the current ETag in If-None-Match are answered with 304 without rendering.
+   * Charts are rendered off the request thread; if too many are waiting to be rendered, the request is answered
+   * with 503 and a Retry-After header.
+   *
+   * @param country     the name of the country
+   * @param year        the year to chart the populations as of, or null for the latest population counts
+   * @param format      the image format (png, svg), png by default
+   * @param version     the chart key the page referenced, used to make the URL change with the chart
+   * @param ifNoneMatch the ETags of the charts the client already has, if any
+   * @return a future of the chart response
+   */
+  @GetMapping("/chart")
+  public CompletableFuture<ResponseEntity<byte[]>> getCityChart(
+      @RequestParam("country") String country,
+      @RequestParam(value = "year", required = false) Integer year,
+      @RequestParam(value = "format", defaultValue = "png") String format,
+      @RequestParam(value = "v", required = false) String version,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+    ChartFormat chartFormat = ChartFormat.fromValue(format);
+    if (chartFormat == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+    }
+
+    return getChartCitiesAsync(country, year).thenCompose(cities -> {
+      String key = cities == null ? null : chartService.getChartKey(cities);
+      if (key == null) {
+        return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+      }
+
+      CacheControl cacheControl = key.equals(version)
+          ? CacheControl.maxAge(chartMaxAge).cachePublic()
+          : CacheControl.noCache();
+      String eTag = "\"" + key + "." + chartFormat.getValue() + "\"";
+      if (HttpHeaderValues.noneMatchFails(ifNoneMatch, eTag)) {
+        return CompletableFuture.completedFuture(
+            ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build());
+      }
+
+      return chartService.getCityChartAsync(cities, chartFormat).handle((chart, error) -> {
+        if (error != null) {
+          Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+          if (cause instanceof RejectedExecutionException) {
+            LOGGER.warn("Too many charts waiting to be rendered, rejecting the chart of {}", country);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+          }
+          throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        }
+        if (chart == null) {
+          return ResponseEntity.internalServerError().build();
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(chartFormat.getMediaType()))
+            .eTag(eTag)
+            .cacheControl(cacheControl)
+            .body(chart.image());
+      });
+    });
+  }
+
+  /**
+   * Returns the page cache key of a country statistics page, dropping the cached pages of older datasets once
+   * a new dataset version is served. Both services keep their version when a refresh loads unchanged data,
+   * so periodic refreshes do not empty the page cache.
+   *
+   * @param country   the requested country
+   * @param sortOrder the requested sort order
+   * @param year      the requested year, or null for the latest population counts
+   * @return the key, or null if the page is not cacheable because a dataset is not loaded yet, not kept in memory
+   *     or stale
+   */
+  private PageKey getPageKey(String country, String sortOrder, Integer year) {
+    long[] versions = {cityService.getDatasetVersion(), countryInfoService.getTableVersion()};
+    if (versions[0] < 0 || versions[1] < 0
+        || cityService.getStaleSince() != null || countryInfoService.getStaleSince() != null) {
+      return null;
+    }
 
-      return "country-stats";
+    long[] previous = pageVersions.getAndSet(versions);
+    if (!Arrays.equals(previous, versions)) {
+      pageCache.invalidateIf(key -> key.cityVersion() != versions[0] || key.infoVersion() != versions[1]);
+    }
+    return new PageKey(versions[0], versions[1], country, sortOrder, year);
+  }
+
+  /**
+   * Renders a view into memory instead of into the response.
+   *
+   * @param viewName the name of the view
+   * @param model    the model to pass data to the view
+   * @param request  the request
+   * @param response the response, only used for its character encoding
+   * @return the rendered view
+   * @throws IllegalStateException if the view cannot be rendered
+   */
+  private byte[] render(String viewName, Model model, HttpServletRequest request, HttpServletResponse response) {
+    try {
+      View view = viewResolver.resolveViewName(viewName, RequestContextUtils.getLocale(request));
+      if (view == null) {
+        throw new IllegalStateException("Unknown view: " + viewName);
+      }
+      ContentCachingResponseWrapper capture = new ContentCachingResponseWrapper(response);
+      view.render(model.asMap(), request, capture);
+      return capture.getContentAsByteArray();
     } catch (Exception e) {
-      model.addAttribute("error", "Unable to fetch cities at this time.");
-      return "error";
+      throw new IllegalStateException("Rendering " + viewName + " failed", e);
+    }
+  }
+
+  /**
+   * Answers a request with a rendered page: with 304 if the client has the current page, gzip-compressed if the client
+   * accepts it, or uncompressed otherwise. Clients have to revalidate the page before reusing it.
+   *
+   * @param page           the rendered page
+   * @param ifNoneMatch    the ETags of the pages the client already has, if any
+   * @param acceptEncoding the content encodings the client accepts, if any
+   * @return the page response
+   */
+  private static ResponseEntity<byte[]> toResponse(PageCache.Page page, String ifNoneMatch, String acceptEncoding) {
+    if (HttpHeaderValues.noneMatchFails(ifNoneMatch, page.eTag())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(page.eTag())
+          .cacheControl(CacheControl.noCache())
+          .varyBy(HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+        .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+        .eTag(page.eTag())
+        .cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (HttpHeaderValues.acceptsEncoding(acceptEncoding, "gzip")) {
+      return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.gzipped());
     }
+    return builder.body(page.content());
+  }
+
+  /**
+   * Returns since when the served data is stale, because refreshing it from the API failed.
+   *
+   * @return the earlier load time of the stale datasets as local date-time, or null if all data is current
+   */
+  private LocalDateTime getStaleSince() {
+    Instant staleSince = Stream.of(cityService.getStaleSince(), countryInfoService.getStaleSince())
+        .filter(Objects::nonNull)
+        .min(Comparator.naturalOrder())
+        .orElse(null);
+    return staleSince == null ? null : LocalDateTime.ofInstant(staleSince, ZoneId.systemDefault());
+  }
+
+  /**
+   * Selects the cities shown in the population chart of a country.
+   *
+   * @param country the name of the country
+   * @param year    the year to chart the populations as of, or null for the latest population counts
+   * @return a future of the most populous cities, biggest first, completed with null if the country is unknown
+   */
+  private CompletableFuture<List<CityResponse>> getChartCitiesAsync(String country, Integer year) {
+    return cityService.getTopCitiesAsync(country, ChartService.CHART_CITIES, Metric.POPULATION, year, false);
+  }
+
+  /**
+   * Bounds a future by the request deadline. Failures and timeouts complete the returned future with null.
+   *
+   * @param future  the future of the result
+   * @param name    the name of the result, used for log messages
+   * @param partial set if the result failed or did not complete in time
+   * @param <T>     the type of the result
+   * @return a future completing with the result, or with null if it failed or did not complete in time
+   */
+  private <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future, String name, AtomicBoolean partial) {
+    return future
+        .orTimeout(requestDeadline.toNanos(), TimeUnit.NANOSECONDS)
+        .exceptionally(error -> {
+          partial.set(true);
+          Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+          if (cause instanceof TimeoutException) {
+            LOGGER.warn("Fetching {} exceeded the request deadline", name);
+          } else {
+            LOGGER.warn("Fetching {} failed", name, cause);
+          }
+          return null;
+        });
   }
 }
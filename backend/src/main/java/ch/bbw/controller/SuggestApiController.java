@@ -0,0 +1,91 @@
+package ch.bbw.controller;
+
+import ch.bbw.dtos.SuggestionResponse;
+import ch.bbw.service.CityService;
+import ch.bbw.service.CountryInfoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller for autocompleting country and city names.
+ */
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestApiController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SuggestApiController.class);
+  private static final int MAX_LIMIT = 50;
+
+  private final CityService cityService;
+  private final CountryInfoService countryInfoService;
+
+  /**
+   * Constructor for SuggestApiController.
+   *
+   * @param cityService        the service for city-related operations
+   * @param countryInfoService the service for country info-related operations
+   */
+  @Autowired
+  public SuggestApiController(CityService cityService, CountryInfoService countryInfoService) {
+    this.cityService = cityService;
+    this.countryInfoService = countryInfoService;
+  }
+
+  /**
+   * Suggests countries and cities for the text typed so far, from the in-memory search indexes of the loaded datasets.
+   * Names starting with the text come first, followed by names within a small edit distance of it;
+   * countries come before cities that match equally well.
+   *
+   * @param query the text typed so far
+   * @param limit the maximum number of suggestions, at most 50
+   * @return a future of the suggestions, best first
+   */
+  @GetMapping
+  public CompletableFuture<List<SuggestionResponse>> suggest(
+      @RequestParam("q") String query,
+      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+    }
+
+    CompletableFuture<List<SuggestionResponse>> countries =
+        orEmpty(countryInfoService.suggestCountriesAsync(query, limit), "countries");
+    CompletableFuture<List<SuggestionResponse>> cities = orEmpty(cityService.suggestCitiesAsync(query, limit), "cities");
+
+    return countries.thenCombine(cities, (countryMatches, cityMatches) -> {
+      List<SuggestionResponse> suggestions = new ArrayList<>(countryMatches.size() + cityMatches.size());
+      suggestions.addAll(countryMatches);
+      suggestions.addAll(cityMatches);
+      suggestions.sort(Comparator.comparingInt(SuggestionResponse::getDistance));
+      return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    });
+  }
+
+  /**
+   * Replaces a failure to suggest names with no suggestions, so that one unavailable dataset does not hide the other.
+   *
+   * @param future the future of the suggestions
+   * @param name   the name of the suggested entities, used for log messages
+   * @return a future completing with the suggestions, or with an empty list if they failed
+   */
+  private static CompletableFuture<List<SuggestionResponse>> orEmpty(CompletableFuture<List<SuggestionResponse>> future,
+                                                                     String name) {
+    return future.exceptionally(error -> {
+      LOGGER.warn("Suggesting {} failed", name, error);
+      return List.of();
+    });
+  }
+}
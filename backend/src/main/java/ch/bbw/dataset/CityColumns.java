@@ -0,0 +1,614 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.dtos.PopulationCountResponse;
+import ch.bbw.util.SnapshotFile;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, primitive storage of all cities and their population series.
+ * A city is identified by its index. Its population counts are stored in the shared year and value arrays
+ * between {@code seriesOffsets[city]} (inclusive) and {@code seriesOffsets[city + 1]} (exclusive),
+ * ordered by descending year so that the first count is the latest one; counts without a year come last and counts
+ * of the same year keep the order delivered by the API. This makes every series a time-series index:
+ * lookups by year are binary searches over the series.
+ * Repeated strings (country, sex, reliability) are dictionary-encoded.
+ */
+public final class CityColumns {
+
+  /**
+   * Stored in place of a missing year.
+   */
+  public static final int NO_YEAR = Integer.MIN_VALUE;
+
+  /**
+   * Stored in place of a missing population value.
+   */
+  public static final long NO_VALUE = Long.MIN_VALUE;
+
+  /**
+   * The dataset type of city columns in a {@link SnapshotFile}.
+   */
+  public static final int SNAPSHOT_TYPE = 1;
+
+  /**
+   * The prefix of the reliabilities of final population counts, as opposed to provisional figures and estimates.
+   */
+  private static final String RELIABLE_PREFIX = "Final figure";
+
+  private final String[] cityNames;
+  private final int[] countryCodes;
+  private final int[] seriesOffsets;
+  private final int[] years;
+  private final long[] values;
+  private final short[] sexCodes;
+  private final short[] reliabilityCodes;
+  private final String[] countries;
+  private final String[] sexes;
+  private final String[] reliabilities;
+  private final int[] latestReliableCounts;
+
+  /**
+   * Constructor for CityColumns.
+   *
+   * @param cityNames        the name of every city
+   * @param countryCodes     the country dictionary code of every city
+   * @param seriesOffsets    the start of every city's population series, followed by the total series length
+   * @param years            the year of every population count
+   * @param values           the value of every population count
+   * @param sexCodes         the sex dictionary code of every population count
+   * @param reliabilityCodes the reliability dictionary code of every population count
+   * @param countries        the country dictionary
+   * @param sexes            the sex dictionary
+   * @param reliabilities    the reliability dictionary
+   */
+  CityColumns(String[] cityNames, int[] countryCodes, int[] seriesOffsets, int[] years, long[] values,
+              short[] sexCodes, short[] reliabilityCodes, String[] countries, String[] sexes, String[] reliabilities) {
+    this.cityNames = cityNames;
+    this.countryCodes = countryCodes;
+    this.seriesOffsets = seriesOffsets;
+    this.years = years;
+    this.values = values;
+    this.sexCodes = sexCodes;
+    this.reliabilityCodes = reliabilityCodes;
+    this.countries = countries;
+    this.sexes = sexes;
+    this.reliabilities = reliabilities;
+    this.latestReliableCounts = indexLatestReliable();
+  }
+
+  /**
+   * Returns the number of cities.
+   *
+   * @return the number of cities
+   */
+  public int size() {
+    return cityNames.length;
+  }
+
+  /**
+   * Returns the number of distinct countries.
+   *
+   * @return the size of the country dictionary
+   */
+  public int countryCount() {
+    return countries.length;
+  }
+
+  /**
+   * Returns the country with the given dictionary code.
+   *
+   * @param countryCode the dictionary code
+   * @return the name of the country as delivered by the API
+   */
+  public String country(int countryCode) {
+    return countries[countryCode];
+  }
+
+  /**
+   * Returns the name of a city.
+   *
+   * @param city the city index
+   * @return the name of the city
+   */
+  public String cityName(int city) {
+    return cityNames[city];
+  }
+
+  /**
+   * Returns the country dictionary code of a city.
+   *
+   * @param city the city index
+   * @return the country code
+   */
+  public int countryCode(int city) {
+    return countryCodes[city];
+  }
+
+  /**
+   * Returns the index of a city's first population count.
+   *
+   * @param city the city index
+   * @return the series start, inclusive
+   */
+  public int seriesStart(int city) {
+    return seriesOffsets[city];
+  }
+
+  /**
+   * Returns the index after a city's last population count.
+   *
+   * @param city the city index
+   * @return the series end, exclusive
+   */
+  public int seriesEnd(int city) {
+    return seriesOffsets[city + 1];
+  }
+
+  /**
+   * Returns the year of a population count.
+   *
+   * @param count the population count index
+   * @return the year, or {@link #NO_YEAR}
+   */
+  public int year(int count) {
+    return years[count];
+  }
+
+  /**
+   * Returns the value of a population count.
+   *
+   * @param count the population count index
+   * @return the value, or {@link #NO_VALUE}
+   */
+  public long value(int count) {
+    return values[count];
+  }
+
+  /**
+   * Returns the sex of a population count.
+   *
+   * @param count the population count index
+   * @return the sex, or null
+   */
+  public String sex(int count) {
+    return sexes[sexCodes[count]];
+  }
+
+  /**
+   * Returns the reliability of a population count.
+   *
+   * @param count the population count index
+   * @return the reliability, or null
+   */
+  public String reliability(int count) {
+    return reliabilities[reliabilityCodes[count]];
+  }
+
+  /**
+   * Finds the latest population count of a city with a value, up to and including a year.
+   *
+   * @param city the city index
+   * @param year the year
+   * @return the population count index, or -1 if the city has no count with a value up to the year
+   */
+  public int countAsOf(int city, int year) {
+    int end = seriesEnd(city);
+    for (int count = firstCountUpTo(city, year); count < end && years[count] != NO_YEAR; count++) {
+      if (values[count] != NO_VALUE) {
+        return count;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the latest population count of a city with a value.
+   *
+   * @param city the city index
+   * @return the population count index, or -1 if the city has no count with a value
+   */
+  public int latestCount(int city) {
+    int end = seriesEnd(city);
+    for (int count = seriesStart(city); count < end; count++) {
+      if (values[count] != NO_VALUE) {
+        return count;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the latest population of a city, up to and including a year.
+   *
+   * @param city the city index
+   * @param year the year, or null for the latest population
+   * @return the value of the latest count up to the year, or {@link #NO_VALUE}
+   */
+  public long populationAsOf(int city, Integer year) {
+    int count = year == null ? latestCount(city) : countAsOf(city, year);
+    return count < 0 ? NO_VALUE : values[count];
+  }
+
+  /**
+   * Returns the population of a city counted in exactly the given year.
+   *
+   * @param city the city index
+   * @param year the year
+   * @return the value of the first count of the year, or {@link #NO_VALUE}
+   */
+  public long populationIn(int city, int year) {
+    int end = seriesEnd(city);
+    for (int count = firstCountUpTo(city, year); count < end && years[count] == year; count++) {
+      if (values[count] != NO_VALUE) {
+        return values[count];
+      }
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Returns the relative population growth of a city between two years, from the latest counts up to each year.
+   *
+   * @param city     the city index
+   * @param fromYear the year to grow from
+   * @param toYear   the year to grow to
+   * @return the growth, e.g. 0.05 for 5%, or NaN if either population is unknown or the first one is zero
+   */
+  public double growth(int city, int fromYear, int toYear) {
+    long from = populationAsOf(city, fromYear);
+    long to = populationAsOf(city, toYear);
+    if (from == NO_VALUE || to == NO_VALUE || from == 0) {
+      return Double.NaN;
+    }
+    return (double) to / from - 1;
+  }
+
+  /**
+   * Returns the latest final (as opposed to provisional or estimated) population count of a city.
+   * The counts are indexed when the columns are created, so this is a lookup.
+   *
+   * @param city the city index
+   * @return the population count index, or -1 if the city has no final count with a value
+   */
+  public int latestReliableCount(int city) {
+    return latestReliableCounts[city];
+  }
+
+  /**
+   * Returns a read-only CityResponse view of a city.
+   *
+   * @param city the city index
+   * @return the view
+   */
+  public CityResponse view(int city) {
+    return new CityView(this, city, seriesStart(city));
+  }
+
+  /**
+   * Returns a read-only CityResponse view of a city as it was known in a year: its population series only holds
+   * the counts up to and including the year, so the first count is the population as of that year.
+   *
+   * @param city the city index
+   * @param year the year, or null for the whole series
+   * @return the view
+   */
+  public CityResponse viewAsOf(int city, Integer year) {
+    return new CityView(this, city, seriesStart(city, year));
+  }
+
+  /**
+   * Returns the index of the first population count of a city up to a year, by binary search.
+   *
+   * @param city the city index
+   * @param year the year, or null for the latest population count
+   * @return the population count index, which equals {@link #seriesEnd(int)} if all counts are later
+   */
+  public int seriesStart(int city, Integer year) {
+    return year == null ? seriesStart(city) : firstCountUpTo(city, year);
+  }
+
+  /**
+   * Finds the first population count of a city whose year is not after the given year, by binary search over the
+   * series, which is ordered by descending year.
+   *
+   * @param city the city index
+   * @param year the year
+   * @return the population count index, or the series end if all counts are later
+   */
+  private int firstCountUpTo(int city, int year) {
+    int low = seriesStart(city);
+    int high = seriesEnd(city);
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (years[middle] > year) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Indexes the latest final population count of every city.
+   *
+   * @return the population count index of every city, or -1 if it has none
+   */
+  private int[] indexLatestReliable() {
+    boolean[] reliable = new boolean[reliabilities.length];
+    for (int code = 0; code < reliabilities.length; code++) {
+      reliable[code] = reliabilities[code] != null && reliabilities[code].startsWith(RELIABLE_PREFIX);
+    }
+
+    int[] latest = new int[cityNames.length];
+    for (int city = 0; city < cityNames.length; city++) {
+      latest[city] = -1;
+      for (int count = seriesStart(city); count < seriesEnd(city); count++) {
+        if (reliable[reliabilityCodes[count]] && values[count] != NO_VALUE) {
+          latest[city] = count;
+          break;
+        }
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Writes the columns as a snapshot payload, readable by {@link #read(ByteBuffer)}.
+   *
+   * @param output the output to write to
+   * @throws IOException if an I/O error occurs
+   */
+  public void write(DataOutputStream output) throws IOException {
+    writeStrings(output, countries);
+    writeStrings(output, sexes);
+    writeStrings(output, reliabilities);
+    writeStrings(output, cityNames);
+
+    output.writeInt(years.length);
+    for (int i = 0; i < cityNames.length; i++) {
+      output.writeInt(countryCodes[i]);
+    }
+    for (int offset : seriesOffsets) {
+      output.writeInt(offset);
+    }
+    for (int year : years) {
+      output.writeInt(year);
+    }
+    for (long value : values) {
+      output.writeLong(value);
+    }
+    for (short sex : sexCodes) {
+      output.writeShort(sex);
+    }
+    for (short reliability : reliabilityCodes) {
+      output.writeShort(reliability);
+    }
+  }
+
+  /**
+   * Reads columns from a snapshot payload written by {@link #write(DataOutputStream)}.
+   * The primitive columns are copied from the buffer in bulk.
+   *
+   * @param input the payload
+   * @return the columns
+   */
+  public static CityColumns read(ByteBuffer input) {
+    String[] countries = readStrings(input);
+    String[] sexes = readStrings(input);
+    String[] reliabilities = readStrings(input);
+    String[] cityNames = readStrings(input);
+
+    int counts = input.getInt();
+    int[] countryCodes = new int[cityNames.length];
+    int[] seriesOffsets = new int[cityNames.length + 1];
+    int[] years = new int[counts];
+    long[] values = new long[counts];
+    short[] sexCodes = new short[counts];
+    short[] reliabilityCodes = new short[counts];
+
+    input.asIntBuffer().get(countryCodes);
+    input.position(input.position() + Integer.BYTES * countryCodes.length);
+    input.asIntBuffer().get(seriesOffsets);
+    input.position(input.position() + Integer.BYTES * seriesOffsets.length);
+    input.asIntBuffer().get(years);
+    input.position(input.position() + Integer.BYTES * counts);
+    input.asLongBuffer().get(values);
+    input.position(input.position() + Long.BYTES * counts);
+    input.asShortBuffer().get(sexCodes);
+    input.position(input.position() + Short.BYTES * counts);
+    input.asShortBuffer().get(reliabilityCodes);
+    input.position(input.position() + Short.BYTES * counts);
+
+    return new CityColumns(cityNames, countryCodes, seriesOffsets, years, values,
+        sexCodes, reliabilityCodes, countries, sexes, reliabilities);
+  }
+
+  /**
+   * Writes a count-prefixed array of nullable strings.
+   *
+   * @param output  the output to write to
+   * @param strings the strings
+   * @throws IOException if an I/O error occurs
+   */
+  private static void writeStrings(DataOutputStream output, String[] strings) throws IOException {
+    output.writeInt(strings.length);
+    for (String string : strings) {
+      SnapshotFile.writeString(output, string);
+    }
+  }
+
+  /**
+   * Reads a count-prefixed array of nullable strings.
+   *
+   * @param input the buffer to read from
+   * @return the strings
+   */
+  private static String[] readStrings(ByteBuffer input) {
+    String[] strings = new String[input.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = SnapshotFile.readString(input);
+    }
+    return strings;
+  }
+
+  /**
+   * Collects cities one by one into columns, so that no object graph of the whole dataset is ever retained.
+   */
+  public static final class Builder {
+
+    private final List<String> cityNames = new ArrayList<>();
+    private int[] countryCodes = new int[1024];
+    private int[] seriesOffsets = new int[1025];
+    private int[] years = new int[4096];
+    private long[] values = new long[4096];
+    private short[] sexCodes = new short[4096];
+    private short[] reliabilityCodes = new short[4096];
+    private int counts;
+    private final Dictionary countries = new Dictionary(false);
+    private final Dictionary sexes = new Dictionary(true);
+    private final Dictionary reliabilities = new Dictionary(true);
+
+    /**
+     * Appends a city and its population series.
+     *
+     * @param city the city to append
+     */
+    public void add(CityResponse city) {
+      int index = cityNames.size();
+      if (index == countryCodes.length) {
+        countryCodes = Arrays.copyOf(countryCodes, index * 2);
+        seriesOffsets = Arrays.copyOf(seriesOffsets, index * 2 + 1);
+      }
+
+      cityNames.add(city.getCity());
+      countryCodes[index] = countries.code(city.getCountry());
+      int start = counts;
+      for (PopulationCountResponse count : city.getPopulationCounts()) {
+        addCount(count);
+      }
+      sortSeries(start, counts);
+      seriesOffsets[index + 1] = counts;
+    }
+
+    /**
+     * Orders the population counts of one series by descending year with a stable insertion sort, which is linear
+     * for the usual already-ordered series.
+     *
+     * @param from the first count of the series, inclusive
+     * @param to   the end of the series, exclusive
+     */
+    private void sortSeries(int from, int to) {
+      for (int i = from + 1; i < to; i++) {
+        int year = years[i];
+        long value = values[i];
+        short sex = sexCodes[i];
+        short reliability = reliabilityCodes[i];
+        int j = i - 1;
+        while (j >= from && years[j] < year) {
+          years[j + 1] = years[j];
+          values[j + 1] = values[j];
+          sexCodes[j + 1] = sexCodes[j];
+          reliabilityCodes[j + 1] = reliabilityCodes[j];
+          j--;
+        }
+        years[j + 1] = year;
+        values[j + 1] = value;
+        sexCodes[j + 1] = sex;
+        reliabilityCodes[j + 1] = reliability;
+      }
+    }
+
+    /**
+     * Builds the columns.
+     *
+     * @return the columns holding all appended cities
+     */
+    public CityColumns build() {
+      int size = cityNames.size();
+      return new CityColumns(
+          cityNames.toArray(String[]::new),
+          Arrays.copyOf(countryCodes, size),
+          Arrays.copyOf(seriesOffsets, size + 1),
+          Arrays.copyOf(years, counts),
+          Arrays.copyOf(values, counts),
+          Arrays.copyOf(sexCodes, counts),
+          Arrays.copyOf(reliabilityCodes, counts),
+          countries.toArray(),
+          sexes.toArray(),
+          reliabilities.toArray());
+    }
+
+    /**
+     * Appends a population count to the shared series columns.
+     *
+     * @param count the population count to append
+     */
+    private void addCount(PopulationCountResponse count) {
+      if (counts == years.length) {
+        years = Arrays.copyOf(years, counts * 2);
+        values = Arrays.copyOf(values, counts * 2);
+        sexCodes = Arrays.copyOf(sexCodes, counts * 2);
+        reliabilityCodes = Arrays.copyOf(reliabilityCodes, counts * 2);
+      }
+
+      years[counts] = count.getYear() == null ? NO_YEAR : count.getYear();
+      values[counts] = count.getValue() == null ? NO_VALUE : count.getValue();
+      sexCodes[counts] = (short) sexes.code(count.getSex());
+      reliabilityCodes[counts] = (short) reliabilities.code(count.getReliabilty());
+      counts++;
+    }
+  }
+
+  /**
+   * Assigns consecutive codes to distinct strings.
+   */
+  private static final class Dictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> entries = new ArrayList<>();
+
+    /**
+     * Constructor for Dictionary.
+     *
+     * @param reserveNull whether code 0 is reserved for null
+     */
+    private Dictionary(boolean reserveNull) {
+      if (reserveNull) {
+        codes.put(null, 0);
+        entries.add(null);
+      }
+    }
+
+    /**
+     * Returns the code of a string, assigning a new one if it has not been seen yet.
+     *
+     * @param value the string
+     * @return the code
+     */
+    private int code(String value) {
+      return codes.computeIfAbsent(value, key -> {
+        entries.add(key);
+        return entries.size() - 1;
+      });
+    }
+
+    /**
+     * Returns the dictionary entries indexed by code.
+     *
+     * @return the entries
+     */
+    private String[] toArray() {
+      return entries.toArray(String[]::new);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package ch.bbw.dataset;
+
+import ch.bbw.enums.SortOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * A keyset position in the sorted cities of a country: the sort key, name and index of the last city of a page.
+ * The next page starts with the first city ordered after it, so pages stay consistent while the dataset is
+ * refreshed between requests.
+ *
+ * @param sortOrder the sort order the cursor was created for, or null for the order delivered by the API
+ * @param year      the year the cursor was created for, or null for the latest population counts
+ * @param key       the population or year of the city, or its position for the order delivered by the API
+ * @param name      the name of the city
+ * @param city      the index of the city, breaking ties between cities of the same key and name
+ */
+public record CityCursor(SortOrder sortOrder, Integer year, long key, String name, int city) {
+
+  private static final int FORMAT_VERSION = 2;
+
+  /**
+   * Encodes the cursor as an opaque, URL-safe token.
+   *
+   * @return the token
+   */
+  public String encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeByte(FORMAT_VERSION);
+      output.writeUTF(sortOrder == null ? "" : sortOrder.getValue());
+      output.writeInt(year == null ? CityColumns.NO_YEAR : year);
+      output.writeLong(key);
+      output.writeInt(city);
+      output.writeUTF(name);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // Writing to memory does not fail
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+  }
+
+  /**
+   * Decodes a token created by {@link #encode()}.
+   *
+   * @param token the token
+   * @return the cursor
+   * @throws IllegalArgumentException if the token is not a valid cursor
+   */
+  public static CityCursor decode(String token) {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+      if (input.readByte() != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported cursor: " + token);
+      }
+      String sortOrder = input.readUTF();
+      int year = input.readInt();
+      long key = input.readLong();
+      int city = input.readInt();
+      String name = input.readUTF();
+      return new CityCursor(sortOrder.isEmpty() ? null : SortOrder.fromValue(sortOrder),
+          year == CityColumns.NO_YEAR ? null : year, key, name, city);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + token, e);
+    }
+  }
+}
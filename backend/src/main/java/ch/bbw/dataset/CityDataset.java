@@ -0,0 +1,340 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.dtos.SuggestionResponse;
+import ch.bbw.enums.Metric;
+import ch.bbw.enums.SortOrder;
+import ch.bbw.util.CountryNames;
+import ch.bbw.util.NameIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable, loaded version of the city dataset, indexed by country.
+ * The cities are stored in {@link CityColumns}; the sort orders and aggregate statistics of every country
+ * are computed once when the dataset is built, as is the search index over the city names.
+ */
+public final class CityDataset {
+
+  private final CityColumns columns;
+  private final Map<String, CountryCities> citiesByCountry;
+  private final Map<String, Integer> groupOfKey;
+  private final int[] groupOfCountry;
+  private final int recomputedAggregates;
+  private final NameIndex nameIndex;
+
+  /**
+   * Constructor for CityDataset.
+   *
+   * @param columns              the columns holding all cities
+   * @param citiesByCountry      the cities grouped by country lookup key
+   * @param groupOfKey           the index of the group of each country lookup key
+   * @param groupOfCountry       the index of the group of each country code of the columns
+   * @param recomputedAggregates the number of countries whose aggregates were computed rather than taken over
+   * @param nameIndex            the search index over the city names, with city indexes as ids
+   */
+  private CityDataset(CityColumns columns, Map<String, CountryCities> citiesByCountry, Map<String, Integer> groupOfKey,
+                      int[] groupOfCountry, int recomputedAggregates, NameIndex nameIndex) {
+    this.columns = columns;
+    this.citiesByCountry = citiesByCountry;
+    this.groupOfKey = groupOfKey;
+    this.groupOfCountry = groupOfCountry;
+    this.recomputedAggregates = recomputedAggregates;
+    this.nameIndex = nameIndex;
+  }
+
+  /**
+   * Builds the dataset and its country index from the given cities.
+   *
+   * @param cities the cities of all countries
+   * @return the indexed dataset
+   */
+  public static CityDataset of(List<CityResponse> cities) {
+    Builder builder = new Builder();
+    cities.forEach(builder::add);
+    return builder.build();
+  }
+
+  /**
+   * Builds the dataset and its country index from the given columns.
+   *
+   * @param columns the columns holding the cities of all countries
+   * @return the indexed dataset
+   */
+  public static CityDataset of(CityColumns columns) {
+    return of(columns, null);
+  }
+
+  /**
+   * Builds the dataset and its country index from the given columns. The sort orders and aggregate statistics
+   * of countries whose cities are unchanged are taken over from the previous dataset instead of being recomputed,
+   * so a refresh only sorts the countries that changed.
+   *
+   * @param columns  the columns holding the cities of all countries
+   * @param previous the previously loaded dataset, or null
+   * @return the indexed dataset
+   */
+  public static CityDataset of(CityColumns columns, CityDataset previous) {
+    // Spellings of the same country share one lookup key, so their cities end up in one group
+    Map<String, Integer> groups = new HashMap<>();
+    int[] groupOfCountry = new int[columns.countryCount()];
+    for (int countryCode = 0; countryCode < columns.countryCount(); countryCode++) {
+      String key = CountryNames.key(columns.country(countryCode));
+      groupOfCountry[countryCode] = groups.computeIfAbsent(key, ignored -> groups.size());
+    }
+
+    int[] groupSizes = new int[groups.size()];
+    for (int city = 0; city < columns.size(); city++) {
+      groupSizes[groupOfCountry[columns.countryCode(city)]]++;
+    }
+
+    int[][] groupCities = new int[groups.size()][];
+    for (int group = 0; group < groupCities.length; group++) {
+      groupCities[group] = new int[groupSizes[group]];
+    }
+
+    int[] filled = new int[groups.size()];
+    for (int city = 0; city < columns.size(); city++) {
+      int group = groupOfCountry[columns.countryCode(city)];
+      groupCities[group][filled[group]++] = city;
+    }
+
+    Map<String, CountryCities> index = new HashMap<>();
+    groups.forEach((key, group) -> index.put(key, CountryCities.of(columns, groupCities[group],
+        previous == null ? null : previous.citiesByCountry.get(key))));
+
+    int recomputed = 0;
+    for (Map.Entry<String, CountryCities> entry : index.entrySet()) {
+      CountryCities before = previous == null ? null : previous.citiesByCountry.get(entry.getKey());
+      if (before == null || before.getAggregate() != entry.getValue().getAggregate()) {
+        recomputed++;
+      }
+    }
+
+    return new CityDataset(columns, Map.copyOf(index), Map.copyOf(groups), groupOfCountry, recomputed,
+        NameIndex.of(columns.size(), columns::cityName));
+  }
+
+  /**
+   * Returns the cities of the given country in the order delivered by the API.
+   *
+   * @param country the name of the country, in any case or known spelling
+   * @return an immutable list of the country's cities, empty if the country is unknown
+   */
+  public List<CityResponse> getCities(String country) {
+    return getCities(country, null);
+  }
+
+  /**
+   * Returns the cities of the given country in the given sort order.
+   *
+   * @param country   the name of the country, in any case or known spelling
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @return an immutable list of the country's cities, empty if the country is unknown
+   */
+  public List<CityResponse> getCities(String country, SortOrder sortOrder) {
+    return getCities(country, sortOrder, null);
+  }
+
+  /**
+   * Returns the cities of the given country as of a year in the given sort order.
+   * The population series of the returned cities only hold the counts up to the year.
+   *
+   * @param country   the name of the country, in any case or known spelling
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the year, or null for each city's latest population count
+   * @return an immutable list of the country's cities, empty if the country is unknown
+   */
+  public List<CityResponse> getCities(String country, SortOrder sortOrder, Integer year) {
+    CountryCities countryCities = citiesByCountry.get(CountryNames.key(country));
+    return countryCities == null ? List.of() : countryCities.getCities(sortOrder, year);
+  }
+
+  /**
+   * Returns a page of the cities of the given country in the given sort order.
+   *
+   * @param country   the name of the country, in any case or known spelling
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the year to sort by the populations of, or null for each city's latest population count
+   * @param after     the cursor of the previous page, or null for the first page
+   * @param limit     the maximum number of cities of the page
+   * @return the page, or null if the country is unknown
+   * @throws IllegalArgumentException if the cursor was created for another sort order or year
+   */
+  public CityPage getPage(String country, SortOrder sortOrder, Integer year, CityCursor after, int limit) {
+    CountryCities countryCities = citiesByCountry.get(CountryNames.key(country));
+    return countryCities == null ? null : countryCities.getPage(sortOrder, year, after, limit);
+  }
+
+  /**
+   * Summarizes several countries in a single pass over all cities, split across cores with fork-join.
+   *
+   * @param countries the names of the countries, in any case or known spelling
+   * @param top       the number of largest cities to return per country
+   * @return the summaries keyed by the requested names, in request order; unknown countries are left out
+   */
+  public Map<String, CountrySummary> summarize(Collection<String> countries, int top) {
+    // Spellings of the same country share one slot, as they share one group
+    int[] slotOfGroup = new int[groupOfKey.size()];
+    Arrays.fill(slotOfGroup, -1);
+    Map<String, Integer> slotOfRequest = new LinkedHashMap<>();
+    int slotCount = 0;
+    for (String country : countries) {
+      Integer group = groupOfKey.get(CountryNames.key(country));
+      if (group != null && !slotOfRequest.containsKey(country)) {
+        if (slotOfGroup[group] < 0) {
+          slotOfGroup[group] = slotCount++;
+        }
+        slotOfRequest.put(country, slotOfGroup[group]);
+      }
+    }
+
+    int[] slotOfCountry = new int[groupOfCountry.length];
+    for (int countryCode = 0; countryCode < groupOfCountry.length; countryCode++) {
+      slotOfCountry[countryCode] = slotOfGroup[groupOfCountry[countryCode]];
+    }
+
+    CountrySummaryTask.Accumulator[] accumulators = ForkJoinPool.commonPool()
+        .invoke(new CountrySummaryTask(columns, slotOfCountry, slotCount, top, 0, columns.size()));
+
+    Map<String, CountrySummary> summaries = new LinkedHashMap<>();
+    slotOfRequest.forEach((country, slot) -> summaries.put(country, accumulators[slot].toSummary(columns)));
+    return summaries;
+  }
+
+  /**
+   * Returns the k cities of the given country with the largest or smallest value of a metric.
+   *
+   * @param country   the name of the country, in any case or known spelling
+   * @param k         the maximum number of cities
+   * @param metric    the metric to rank by
+   * @param year      the year to rank the cities as of, or null for each city's latest population count;
+   *                  the population series of the returned cities only hold the counts up to the year
+   * @param ascending whether to select the smallest values rather than the largest
+   * @return an immutable list of the selected cities, best first, or null if the country is unknown
+   */
+  public List<CityResponse> topK(String country, int k, Metric metric, Integer year, boolean ascending) {
+    CountryCities countryCities = citiesByCountry.get(CountryNames.key(country));
+    if (countryCities == null) {
+      return null;
+    }
+
+    int[] cities = countryCities.topK(k, metric, year, ascending);
+    CityResponse[] views = new CityResponse[cities.length];
+    for (int i = 0; i < cities.length; i++) {
+      views[i] = columns.viewAsOf(cities[i], year);
+    }
+    return List.of(views);
+  }
+
+  /**
+   * Suggests cities whose names start with, or nearly start with, the text typed so far.
+   *
+   * @param query the text typed so far
+   * @param limit the maximum number of suggestions
+   * @return the suggestions, best first
+   */
+  public List<SuggestionResponse> suggest(String query, int limit) {
+    List<SuggestionResponse> suggestions = new ArrayList<>();
+    for (NameIndex.Match match : nameIndex.search(query, limit)) {
+      SuggestionResponse suggestion = new SuggestionResponse();
+      suggestion.setType("city");
+      suggestion.setName(columns.cityName(match.id()));
+      suggestion.setCountry(columns.country(columns.countryCode(match.id())));
+      suggestion.setDistance(match.distance());
+      suggestions.add(suggestion);
+    }
+    return suggestions;
+  }
+
+  /**
+   * Returns the aggregate statistics of the given country.
+   *
+   * @param country the name of the country, in any case or known spelling
+   * @return the aggregate, or null if the country is unknown
+   */
+  public CountryAggregate getAggregate(String country) {
+    CountryCities countryCities = citiesByCountry.get(CountryNames.key(country));
+    return countryCities == null ? null : countryCities.getAggregate();
+  }
+
+  /**
+   * Returns the number of countries whose aggregate statistics were computed when this dataset was built,
+   * rather than taken over from the previous dataset.
+   *
+   * @return the number of recomputed aggregates
+   */
+  public int getRecomputedAggregates() {
+    return recomputedAggregates;
+  }
+
+  /**
+   * Returns the number of countries in the dataset.
+   *
+   * @return the number of countries
+   */
+  public int countryCount() {
+    return citiesByCountry.size();
+  }
+
+  /**
+   * Returns the columns holding all cities.
+   *
+   * @return the city columns
+   */
+  public CityColumns getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the total number of cities in the dataset.
+   *
+   * @return the number of cities
+   */
+  public int size() {
+    return columns.size();
+  }
+
+  /**
+   * Collects cities one by one into a dataset, without retaining them as objects.
+   */
+  public static final class Builder {
+
+    private final CityColumns.Builder columns = new CityColumns.Builder();
+
+    /**
+     * Appends a city.
+     *
+     * @param city the city to append
+     */
+    public void add(CityResponse city) {
+      columns.add(city);
+    }
+
+    /**
+     * Builds the indexed dataset.
+     *
+     * @return the dataset holding all appended cities
+     */
+    public CityDataset build() {
+      return build(null);
+    }
+
+    /**
+     * Builds the indexed dataset, taking over the aggregate statistics of unchanged countries.
+     *
+     * @param previous the previously loaded dataset, or null
+     * @return the dataset holding all appended cities
+     */
+    public CityDataset build(CityDataset previous) {
+      return CityDataset.of(columns.build(), previous);
+    }
+  }
+}
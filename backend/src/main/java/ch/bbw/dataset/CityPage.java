@@ -0,0 +1,13 @@
+package ch.bbw.dataset;
+
+/**
+ * One page of the sorted cities of a country.
+ *
+ * @param columns the columns holding the cities
+ * @param cities  the city indexes of the page, in sort order
+ * @param year    the year the cities are viewed as of, or null for their whole population series
+ * @param next    the cursor of the next page, or null if this is the last page
+ * @param total   the number of cities of the country
+ */
+public record CityPage(CityColumns columns, int[] cities, Integer year, CityCursor next, int total) {
+}
@@ -0,0 +1,82 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.dtos.PopulationCountResponse;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A read-only CityResponse backed by {@link CityColumns}, so templates and callers keep working
+ * with the familiar shape while the data stays in primitive columns.
+ */
+final class CityView extends CityResponse {
+
+  private final CityColumns columns;
+  private final int city;
+  private final int seriesStart;
+
+  /**
+   * Constructor for CityView.
+   *
+   * @param columns     the columns holding the city
+   * @param city        the city index
+   * @param seriesStart the first population count of the city to expose, leaving out the later ones
+   */
+  CityView(CityColumns columns, int city, int seriesStart) {
+    this.columns = columns;
+    this.city = city;
+    this.seriesStart = seriesStart;
+  }
+
+  @Override
+  public String getCity() {
+    return columns.cityName(city);
+  }
+
+  @Override
+  public String getCountry() {
+    return columns.country(columns.countryCode(city));
+  }
+
+  @Override
+  public List<PopulationCountResponse> getPopulationCounts() {
+    return new SeriesList();
+  }
+
+  @Override
+  public void setCity(String city) {
+    throw new UnsupportedOperationException("City views are read-only");
+  }
+
+  @Override
+  public void setCountry(String country) {
+    throw new UnsupportedOperationException("City views are read-only");
+  }
+
+  @Override
+  public void setPopulationCounts(List<PopulationCountResponse> populationCounts) {
+    throw new UnsupportedOperationException("City views are read-only");
+  }
+
+  /**
+   * The exposed population series of the city, latest first, as read-only list of views.
+   */
+  private final class SeriesList extends AbstractList<PopulationCountResponse> implements RandomAccess {
+
+    @Override
+    public PopulationCountResponse get(int index) {
+      int count = seriesStart + index;
+      if (index < 0 || count >= columns.seriesEnd(city)) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return new PopulationCountView(columns, count);
+    }
+
+    @Override
+    public int size() {
+      return columns.seriesEnd(city) - seriesStart;
+    }
+  }
+}
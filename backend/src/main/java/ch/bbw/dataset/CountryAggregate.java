@@ -0,0 +1,131 @@
+package ch.bbw.dataset;
+
+import java.util.Arrays;
+
+/**
+ * Aggregate statistics of the cities of one country, computed once when a dataset is loaded.
+ * The population of a city is the value of its most recent population count.
+ *
+ * @param cityCount          the number of cities
+ * @param totalPopulation    the sum of the city populations
+ * @param medianPopulation   the median city population, or 0 if no city has a population count
+ * @param p90Population      the 90th percentile city population, or 0 if no city has a population count
+ * @param latestYear         the most recent year of any population count, or null if there is none
+ * @param latestYearCoverage the share of cities with a population count of the latest year
+ * @param yearOverYearGrowth the annual population growth up to the latest year, over the cities with a count of the
+ *                           latest year and an earlier one: each city grows from its most recent earlier count,
+ *                           annualized over the years in between, weighted by its earlier population;
+ *                           or null if there are no such cities
+ * @param contentHash        the hash of the country's cities, used to detect unchanged countries on reload
+ */
+public record CountryAggregate(int cityCount, long totalPopulation, long medianPopulation, long p90Population,
+                               Integer latestYear, double latestYearCoverage, Double yearOverYearGrowth,
+                               long contentHash) {
+
+  /**
+   * Computes the aggregate of a country.
+   *
+   * @param columns     the columns holding the cities
+   * @param cities      the city indexes of the country
+   * @param contentHash the content hash of the cities, see {@link #hash(CityColumns, int[])}
+   * @return the aggregate
+   */
+  static CountryAggregate compute(CityColumns columns, int[] cities, long contentHash) {
+    long[] populations = new long[cities.length];
+    int withPopulation = 0;
+    long total = 0;
+    int latestYear = CityColumns.NO_YEAR;
+
+    for (int city : cities) {
+      int latest = columns.latestCount(city);
+      if (latest >= 0) {
+        long value = columns.value(latest);
+        populations[withPopulation++] = value;
+        total += value;
+      }
+      if (columns.seriesStart(city) < columns.seriesEnd(city)) {
+        latestYear = Math.max(latestYear, columns.year(columns.seriesStart(city)));
+      }
+    }
+
+    Arrays.sort(populations, 0, withPopulation);
+    if (latestYear == CityColumns.NO_YEAR) {
+      return new CountryAggregate(cities.length, total, percentile(populations, withPopulation, 0.5),
+          percentile(populations, withPopulation, 0.9), null, 0, null, contentHash);
+    }
+
+    // Cities are rarely counted every year, so each one grows from its own most recent earlier count
+    int covered = 0;
+    double grown = 0;
+    long previous = 0;
+    for (int city : cities) {
+      long latestValue = columns.populationIn(city, latestYear);
+      if (latestValue != CityColumns.NO_VALUE) {
+        covered++;
+        int previousCount = columns.countAsOf(city, latestYear - 1);
+        if (previousCount >= 0 && columns.value(previousCount) > 0) {
+          long previousValue = columns.value(previousCount);
+          int years = latestYear - columns.year(previousCount);
+          grown += previousValue * Math.pow((double) latestValue / previousValue, 1.0 / years);
+          previous += previousValue;
+        }
+      }
+    }
+
+    return new CountryAggregate(cities.length, total, percentile(populations, withPopulation, 0.5),
+        percentile(populations, withPopulation, 0.9), latestYear,
+        cities.length == 0 ? 0 : (double) covered / cities.length,
+        previous == 0 ? null : grown / previous - 1, contentHash);
+  }
+
+  /**
+   * Hashes the cities of a country, in order, including every population count.
+   *
+   * @param columns the columns holding the cities
+   * @param cities  the city indexes of the country
+   * @return the 64-bit content hash
+   */
+  static long hash(CityColumns columns, int[] cities) {
+    long hash = 0xcbf29ce484222325L;
+    for (int city : cities) {
+      hash = mix(hash, String.valueOf(columns.cityName(city)).hashCode());
+      for (int count = columns.seriesStart(city); count < columns.seriesEnd(city); count++) {
+        hash = mix(hash, columns.year(count));
+        hash = mix(hash, columns.value(count));
+        hash = mix(hash, String.valueOf(columns.sex(count)).hashCode());
+        hash = mix(hash, String.valueOf(columns.reliability(count)).hashCode());
+      }
+      hash = mix(hash, -1);
+    }
+    return hash;
+  }
+
+  /**
+   * Returns a percentile of sorted values by the nearest-rank method.
+   *
+   * @param sorted     the values, sorted ascending
+   * @param size       the number of values
+   * @param percentile the percentile between 0 and 1
+   * @return the percentile, or 0 if there are no values
+   */
+  private static long percentile(long[] sorted, int size, double percentile) {
+    if (size == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile * size);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  /**
+   * Mixes a value into a hash.
+   *
+   * @param hash  the hash so far
+   * @param value the value
+   * @return the new hash
+   */
+  private static long mix(long hash, long value) {
+    hash ^= value;
+    hash *= 0x100000001b3L;
+    return hash ^ (hash >>> 29);
+  }
+}
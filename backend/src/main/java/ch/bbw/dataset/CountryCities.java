@@ -0,0 +1,432 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.enums.Metric;
+import ch.bbw.enums.SortOrder;
+import ch.bbw.util.IntSorts;
+import ch.bbw.util.TopK;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The cities of one country together with their precomputed sort orders.
+ * Each sort key is stored once as an ascending permutation of city indexes;
+ * descending orders walk the same permutation backwards. Ties are broken by name and then by city index,
+ * so every order is total and can be paged through with a {@link CityCursor}.
+ * Population and year orders use each city's latest population count, or the latest count up to a chosen year;
+ * the orders of a chosen year are built on first use and kept for the lifetime of the dataset.
+ */
+public final class CountryCities {
+
+  private final CityColumns columns;
+  private final int[] cities;
+  private final int[] byName;
+  private final int[] byPopulation;
+  private final int[] byYear;
+  private final CountryAggregate aggregate;
+  private final int earliestYear;
+  private final int latestYear;
+  private final Map<Integer, YearOrders> ordersByYear = new ConcurrentHashMap<>();
+
+  /**
+   * The population and year orders of the cities as of a year.
+   *
+   * @param byPopulation the city indexes ordered by population
+   * @param byYear       the city indexes ordered by year
+   */
+  private record YearOrders(int[] byPopulation, int[] byYear) {
+  }
+
+  /**
+   * Constructor for CountryCities.
+   *
+   * @param columns      the columns holding the cities
+   * @param cities       the city indexes in the order delivered by the API
+   * @param byName       the city indexes ordered by name
+   * @param byPopulation the city indexes ordered by population
+   * @param byYear       the city indexes ordered by year
+   * @param aggregate    the aggregate statistics of the cities
+   * @param earliestYear the earliest year of any population count, or {@link CityColumns#NO_YEAR}
+   * @param latestYear   the latest year of any population count, or {@link CityColumns#NO_YEAR}
+   */
+  private CountryCities(CityColumns columns, int[] cities, int[] byName, int[] byPopulation, int[] byYear,
+                        CountryAggregate aggregate, int earliestYear, int latestYear) {
+    this.columns = columns;
+    this.cities = cities;
+    this.byName = byName;
+    this.byPopulation = byPopulation;
+    this.byYear = byYear;
+    this.aggregate = aggregate;
+    this.earliestYear = earliestYear;
+    this.latestYear = latestYear;
+  }
+
+  /**
+   * Builds the sort orders for the given cities, using each city's latest population count.
+   * Cities without population data sort before all others in ascending order.
+   * The sorts are stable, so cities of the same key and name keep their ascending index order.
+   * If the cities of the country are unchanged since the previous version, nothing is sorted or computed:
+   * its sort orders are remapped to the new city indexes and its aggregate statistics are taken over.
+   *
+   * @param columns  the columns holding the cities
+   * @param cities   the city indexes of one country in ascending order, which is the order delivered by the API
+   * @param previous the same country in the previously loaded dataset, or null
+   * @return the cities with their sort orders
+   */
+  static CountryCities of(CityColumns columns, int[] cities, CountryCities previous) {
+    long contentHash = CountryAggregate.hash(columns, cities);
+    if (previous != null && previous.aggregate.contentHash() == contentHash && previous.cities.length == cities.length) {
+      return new CountryCities(columns, cities, previous.remap(previous.byName, cities),
+          previous.remap(previous.byPopulation, cities), previous.remap(previous.byYear, cities), previous.aggregate,
+          previous.earliestYear, previous.latestYear);
+    }
+
+    int[] byName = cities.clone();
+    IntSorts.sort(byName, (a, b) -> name(columns, a).compareTo(name(columns, b)));
+    YearOrders latest = sortAsOf(columns, cities, null);
+
+    int earliestYear = Integer.MAX_VALUE;
+    int latestYear = CityColumns.NO_YEAR;
+    for (int city : cities) {
+      for (int count = columns.seriesStart(city); count < columns.seriesEnd(city); count++) {
+        if (columns.year(count) != CityColumns.NO_YEAR) {
+          earliestYear = Math.min(earliestYear, columns.year(count));
+          latestYear = Math.max(latestYear, columns.year(count));
+        }
+      }
+    }
+
+    CountryAggregate aggregate = CountryAggregate.compute(columns, cities, contentHash);
+    return new CountryCities(columns, cities, byName, latest.byPopulation(), latest.byYear(), aggregate,
+        latestYear == CityColumns.NO_YEAR ? CityColumns.NO_YEAR : earliestYear, latestYear);
+  }
+
+  /**
+   * Translates a permutation of this version's city indexes to the indexes of the same cities in a new version.
+   * Both versions hold the same cities in the same order, and city indexes ascend within a country,
+   * so each city is found by binary search.
+   *
+   * @param permutation the permutation of this version's city indexes
+   * @param cities      the city indexes of the new version, in the same order as this version's
+   * @return the permutation of the new city indexes
+   */
+  private int[] remap(int[] permutation, int[] cities) {
+    int[] remapped = new int[permutation.length];
+    for (int i = 0; i < permutation.length; i++) {
+      remapped[i] = cities[Arrays.binarySearch(this.cities, permutation[i])];
+    }
+    return remapped;
+  }
+
+  /**
+   * Sorts the cities by their population and by their year as of a year.
+   *
+   * @param columns the columns holding the cities
+   * @param cities  the city indexes in the order delivered by the API
+   * @param year    the year, or null for each city's latest population count
+   * @return the population and year orders
+   */
+  private static YearOrders sortAsOf(CityColumns columns, int[] cities, Integer year) {
+    int[] byPopulation = cities.clone();
+    IntSorts.sort(byPopulation, (a, b) -> {
+      int order = Long.compare(population(columns, a, year), population(columns, b, year));
+      return order != 0 ? order : name(columns, a).compareTo(name(columns, b));
+    });
+    int[] byYear = cities.clone();
+    IntSorts.sort(byYear, (a, b) -> {
+      int order = Integer.compare(year(columns, a, year), year(columns, b, year));
+      return order != 0 ? order : name(columns, a).compareTo(name(columns, b));
+    });
+    return new YearOrders(byPopulation, byYear);
+  }
+
+  /**
+   * Returns the cities in the given sort order, as a view without copying.
+   *
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @return an immutable list view of the sorted cities
+   */
+  public List<CityResponse> getCities(SortOrder sortOrder) {
+    return getCities(sortOrder, null);
+  }
+
+  /**
+   * Returns the cities as of a year in the given sort order, as a view without copying.
+   * The population series of the returned cities only hold the counts up to the year.
+   *
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the year, or null for each city's latest population count
+   * @return an immutable list view of the sorted cities
+   */
+  public List<CityResponse> getCities(SortOrder sortOrder, Integer year) {
+    if (sortOrder == null) {
+      return new PermutedList(cities, false, year);
+    }
+    return new PermutedList(getPermutation(sortOrder.getKey(), effectiveYear(year)), sortOrder.isDescending(), year);
+  }
+
+  /**
+   * Returns a page of the cities in the given sort order. The page starts after the cursor position;
+   * the cursor does not have to be a city of this dataset version.
+   *
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the year to sort by the populations of, or null for each city's latest population count
+   * @param after     the cursor of the previous page, or null for the first page
+   * @param limit     the maximum number of cities of the page
+   * @return the page
+   * @throws IllegalArgumentException if the cursor was created for another sort order or year
+   */
+  public CityPage getPage(SortOrder sortOrder, Integer year, CityCursor after, int limit) {
+    if (after != null && (after.sortOrder() != sortOrder || !Objects.equals(after.year(), year))) {
+      throw new IllegalArgumentException("Cursor was created for another sort order or year");
+    }
+
+    Integer sortYear = effectiveYear(year);
+    int start = after == null ? 0 : seek(sortOrder, sortYear, after);
+    int end = (int) Math.min(cities.length, (long) start + limit);
+    int[] page = new int[Math.max(0, end - start)];
+    for (int position = start; position < end; position++) {
+      page[position - start] = cityAt(sortOrder, sortYear, position);
+    }
+
+    CityCursor next = end < cities.length && page.length > 0
+        ? cursorOf(sortOrder, year, sortYear, end - 1, page[page.length - 1])
+        : null;
+    return new CityPage(columns, page, year, next, cities.length);
+  }
+
+  /**
+   * Selects the k cities with the largest or smallest value of a metric with a bounded heap, without sorting.
+   * Cities without a value are left out; ties are won by the city delivered first by the API.
+   *
+   * @param k         the maximum number of cities
+   * @param metric    the metric to rank by
+   * @param year      the year to rank the cities as of, or null for each city's latest population count
+   * @param ascending whether to select the smallest values rather than the largest
+   * @return the city indexes, best first
+   */
+  public int[] topK(int k, Metric metric, Integer year, boolean ascending) {
+    TopK top = new TopK(k, !ascending);
+    for (int city : cities) {
+      long value = switch (metric) {
+        case POPULATION -> population(columns, city, year);
+        case YEAR -> year(columns, city, year) == CityColumns.NO_YEAR ? CityColumns.NO_VALUE : year(columns, city, year);
+      };
+      if (value != CityColumns.NO_VALUE) {
+        top.offer(city, value);
+      }
+    }
+    return top.toArray();
+  }
+
+  /**
+   * Returns the aggregate statistics of the cities.
+   *
+   * @return the aggregate
+   */
+  public CountryAggregate getAggregate() {
+    return aggregate;
+  }
+
+  /**
+   * Returns the number of cities.
+   *
+   * @return the number of cities
+   */
+  public int size() {
+    return cities.length;
+  }
+
+  /**
+   * Maps a year to the earliest year with the same orders, so that years after the latest count share the orders
+   * of the latest counts and years before the earliest count share one order.
+   *
+   * @param year the year, or null for each city's latest population count
+   * @return the year to sort by, or null for the latest population counts
+   */
+  private Integer effectiveYear(Integer year) {
+    if (year == null || latestYear == CityColumns.NO_YEAR || year >= latestYear) {
+      return null;
+    }
+    return Math.max(year, earliestYear - 1);
+  }
+
+  /**
+   * Returns the ascending permutation for the given sort key, building the orders of the year on first use.
+   *
+   * @param key  the sort key
+   * @param year the effective year, or null for each city's latest population count
+   * @return the city indexes ordered by the key
+   */
+  private int[] getPermutation(SortOrder.Key key, Integer year) {
+    if (key == SortOrder.Key.NAME) {
+      return byName;
+    }
+    YearOrders orders = year == null
+        ? new YearOrders(byPopulation, byYear)
+        : ordersByYear.computeIfAbsent(year, ignored -> sortAsOf(columns, cities, year));
+    return key == SortOrder.Key.POPULATION ? orders.byPopulation() : orders.byYear();
+  }
+
+  /**
+   * Returns the city at a position of the given sort order.
+   *
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the effective year, or null for each city's latest population count
+   * @param position  the position in the sort order
+   * @return the city index
+   */
+  private int cityAt(SortOrder sortOrder, Integer year, int position) {
+    if (sortOrder == null) {
+      return cities[position];
+    }
+    int[] permutation = getPermutation(sortOrder.getKey(), year);
+    return permutation[sortOrder.isDescending() ? permutation.length - 1 - position : position];
+  }
+
+  /**
+   * Finds the position of the first city ordered after a cursor by binary search in the ascending permutation.
+   *
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the effective year, or null for each city's latest population count
+   * @param after     the cursor
+   * @return the position in the sort order
+   */
+  private int seek(SortOrder sortOrder, Integer year, CityCursor after) {
+    if (sortOrder == null) {
+      return (int) Math.max(0, Math.min(cities.length, after.key() + 1));
+    }
+
+    int[] permutation = getPermutation(sortOrder.getKey(), year);
+    boolean descending = sortOrder.isDescending();
+    int low = 0;
+    int high = permutation.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int order = compare(sortOrder.getKey(), year, permutation[middle], after);
+      // Ascending: count the cities up to and including the cursor; descending: count those before it
+      if (order < 0 || (order == 0 && !descending)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return descending ? permutation.length - low : low;
+  }
+
+  /**
+   * Compares a city to a cursor in the ascending order of a sort key.
+   *
+   * @param key    the sort key
+   * @param year   the effective year, or null for each city's latest population count
+   * @param city   the city index
+   * @param cursor the cursor
+   * @return a negative number, zero or a positive number if the city is ordered before, at or after the cursor
+   */
+  private int compare(SortOrder.Key key, Integer year, int city, CityCursor cursor) {
+    int order = switch (key) {
+      case NAME -> 0;
+      case POPULATION -> Long.compare(population(columns, city, year), cursor.key());
+      case YEAR -> Long.compare(year(columns, city, year), cursor.key());
+    };
+    if (order == 0) {
+      order = name(columns, city).compareTo(cursor.name());
+    }
+    return order != 0 ? order : Integer.compare(city, cursor.city());
+  }
+
+  /**
+   * Creates the cursor pointing at a city.
+   *
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the requested year, or null for each city's latest population count
+   * @param sortYear  the effective year of the requested year
+   * @param position  the position of the city in the sort order
+   * @param city      the city index
+   * @return the cursor
+   */
+  private CityCursor cursorOf(SortOrder sortOrder, Integer year, Integer sortYear, int position, int city) {
+    long key = sortOrder == null ? position : switch (sortOrder.getKey()) {
+      case NAME -> 0;
+      case POPULATION -> population(columns, city, sortYear);
+      case YEAR -> year(columns, city, sortYear);
+    };
+    return new CityCursor(sortOrder, year, key, name(columns, city), city);
+  }
+
+  /**
+   * Returns the sortable name of a city.
+   *
+   * @param columns the columns holding the city
+   * @param city    the city index
+   * @return the name, or an empty string if missing
+   */
+  private static String name(CityColumns columns, int city) {
+    String name = columns.cityName(city);
+    return name == null ? "" : name;
+  }
+
+  /**
+   * Returns the sortable population of a city as of a year.
+   *
+   * @param columns the columns holding the city
+   * @param city    the city index
+   * @param year    the year, or null for the latest population count
+   * @return the value of the latest population count up to the year, or {@link CityColumns#NO_VALUE}
+   */
+  private static long population(CityColumns columns, int city, Integer year) {
+    return columns.populationAsOf(city, year);
+  }
+
+  /**
+   * Returns the sortable year of a city as of a year.
+   *
+   * @param columns the columns holding the city
+   * @param city    the city index
+   * @param year    the year, or null for the latest population count
+   * @return the year of the latest population count up to the year, or {@link CityColumns#NO_YEAR}
+   */
+  private static int year(CityColumns columns, int city, Integer year) {
+    int count = year == null ? columns.latestCount(city) : columns.countAsOf(city, year);
+    return count < 0 ? CityColumns.NO_YEAR : columns.year(count);
+  }
+
+  /**
+   * A read-only list of city views walking a permutation forwards or backwards.
+   */
+  private final class PermutedList extends AbstractList<CityResponse> implements RandomAccess {
+
+    private final int[] permutation;
+    private final boolean reversed;
+    private final Integer year;
+
+    /**
+     * Constructor for PermutedList.
+     *
+     * @param permutation the ascending permutation
+     * @param reversed    whether to walk the permutation backwards
+     * @param year        the year to view the cities as of, or null for their whole series
+     */
+    private PermutedList(int[] permutation, boolean reversed, Integer year) {
+      this.permutation = permutation;
+      this.reversed = reversed;
+      this.year = year;
+    }
+
+    @Override
+    public CityResponse get(int index) {
+      return columns.viewAsOf(permutation[reversed ? permutation.length - 1 - index : index], year);
+    }
+
+    @Override
+    public int size() {
+      return permutation.length;
+    }
+  }
+}
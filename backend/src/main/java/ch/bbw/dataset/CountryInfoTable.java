@@ -0,0 +1,184 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CountryInfoResponse;
+import ch.bbw.dtos.SuggestionResponse;
+import ch.bbw.util.CountryNames;
+import ch.bbw.util.NameIndex;
+import ch.bbw.util.SnapshotFile;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable, loaded version of the country information, indexed by name and ISO code, and by name for search.
+ */
+public final class CountryInfoTable {
+
+  /**
+   * The dataset type of a country information table in a {@link SnapshotFile}.
+   */
+  public static final int SNAPSHOT_TYPE = 2;
+
+  private final List<CountryInfoResponse> countries;
+  private final Map<String, CountryInfoResponse> byName;
+  private final Map<String, CountryInfoResponse> byIsoCode;
+  private final NameIndex nameIndex;
+  private final Duration loadTime;
+
+  /**
+   * Constructor for CountryInfoTable.
+   *
+   * @param countries the information of all countries as delivered by the API
+   * @param byName    the country information keyed by country lookup key
+   * @param byIsoCode the country information keyed by upper-case ISO 3166 alpha-2 and alpha-3 code
+   * @param nameIndex the search index over the country names, with positions in countries as ids
+   * @param loadTime  the time it took to fetch and index the table
+   */
+  private CountryInfoTable(List<CountryInfoResponse> countries, Map<String, CountryInfoResponse> byName,
+                           Map<String, CountryInfoResponse> byIsoCode, NameIndex nameIndex, Duration loadTime) {
+    this.countries = countries;
+    this.byName = byName;
+    this.byIsoCode = byIsoCode;
+    this.nameIndex = nameIndex;
+    this.loadTime = loadTime;
+  }
+
+  /**
+   * Builds the table and its indexes from the given country information.
+   *
+   * @param countries the information of all countries
+   * @param loadTime  the time it took to fetch the information
+   * @return the indexed table
+   */
+  public static CountryInfoTable of(List<CountryInfoResponse> countries, Duration loadTime) {
+    Map<String, CountryInfoResponse> byName = new HashMap<>();
+    Map<String, CountryInfoResponse> byIsoCode = new HashMap<>();
+
+    for (CountryInfoResponse country : countries) {
+      byName.putIfAbsent(CountryNames.key(country.getName()), country);
+      if (country.getIso2() != null) {
+        byIsoCode.putIfAbsent(country.getIso2().toUpperCase(Locale.ROOT), country);
+      }
+      if (country.getIso3() != null) {
+        byIsoCode.putIfAbsent(country.getIso3().toUpperCase(Locale.ROOT), country);
+      }
+    }
+
+    List<CountryInfoResponse> copy = List.copyOf(countries);
+    NameIndex nameIndex = NameIndex.of(copy.size(), index -> copy.get(index).getName());
+    return new CountryInfoTable(copy, Map.copyOf(byName), Map.copyOf(byIsoCode), nameIndex, loadTime);
+  }
+
+  /**
+   * Writes the table as a snapshot payload, readable by {@link #read(ByteBuffer)}.
+   *
+   * @param output the output to write to
+   * @throws IOException if an I/O error occurs
+   */
+  public void write(DataOutputStream output) throws IOException {
+    output.writeInt(countries.size());
+    for (CountryInfoResponse country : countries) {
+      SnapshotFile.writeString(output, country.getName());
+      SnapshotFile.writeString(output, country.getCurrency());
+      SnapshotFile.writeString(output, country.getCapital());
+      SnapshotFile.writeString(output, country.getFlag());
+      SnapshotFile.writeString(output, country.getDialCode());
+      SnapshotFile.writeString(output, country.getIso2());
+      SnapshotFile.writeString(output, country.getIso3());
+    }
+  }
+
+  /**
+   * Reads a table from a snapshot payload written by {@link #write(DataOutputStream)} and indexes it.
+   *
+   * @param input the payload
+   * @return the indexed table
+   */
+  public static CountryInfoTable read(ByteBuffer input) {
+    long start = System.nanoTime();
+    int size = input.getInt();
+    List<CountryInfoResponse> countries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      CountryInfoResponse country = new CountryInfoResponse();
+      country.setName(SnapshotFile.readString(input));
+      country.setCurrency(SnapshotFile.readString(input));
+      country.setCapital(SnapshotFile.readString(input));
+      country.setFlag(SnapshotFile.readString(input));
+      country.setDialCode(SnapshotFile.readString(input));
+      country.setIso2(SnapshotFile.readString(input));
+      country.setIso3(SnapshotFile.readString(input));
+      countries.add(country);
+    }
+    return of(countries, Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  /**
+   * Looks up a country by name, falling back to its ISO code.
+   *
+   * @param country the name or ISO 3166 alpha-2/alpha-3 code of the country
+   * @return the country information, or null if not found
+   */
+  public CountryInfoResponse find(String country) {
+    CountryInfoResponse info = byName.get(CountryNames.key(country));
+    if (info == null && country != null) {
+      info = byIsoCode.get(country.trim().toUpperCase(Locale.ROOT));
+    }
+    return info;
+  }
+
+  /**
+   * Suggests countries whose names start with, or nearly start with, the text typed so far.
+   *
+   * @param query the text typed so far
+   * @param limit the maximum number of suggestions
+   * @return the suggestions, best first
+   */
+  public List<SuggestionResponse> suggest(String query, int limit) {
+    List<SuggestionResponse> suggestions = new ArrayList<>();
+    for (NameIndex.Match match : nameIndex.search(query, limit)) {
+      CountryInfoResponse country = countries.get(match.id());
+      SuggestionResponse suggestion = new SuggestionResponse();
+      suggestion.setType("country");
+      suggestion.setName(country.getName());
+      suggestion.setCountry(country.getName());
+      suggestion.setDistance(match.distance());
+      suggestions.add(suggestion);
+    }
+    return suggestions;
+  }
+
+  /**
+   * Checks whether the table holds exactly the given country information, in the same order.
+   *
+   * @param countries the information of all countries
+   * @return true if the table was built from equal information
+   */
+  public boolean hasCountries(List<CountryInfoResponse> countries) {
+    return this.countries.equals(countries);
+  }
+
+  /**
+   * Returns the number of countries in the table.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return byName.size();
+  }
+
+  /**
+   * Returns the time it took to fetch and index the table.
+   *
+   * @return the load time
+   */
+  public Duration getLoadTime() {
+    return loadTime;
+  }
+}
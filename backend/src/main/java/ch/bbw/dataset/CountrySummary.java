@@ -0,0 +1,17 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+
+import java.util.List;
+
+/**
+ * Population totals and the largest cities of one country.
+ * The population of a city is the value of its latest population count; cities without one count towards
+ * the number of cities only.
+ *
+ * @param cityCount       the number of cities
+ * @param totalPopulation the sum of the city populations
+ * @param topCities       the most populous cities, largest first
+ */
+public record CountrySummary(int cityCount, long totalPopulation, List<CityResponse> topCities) {
+}
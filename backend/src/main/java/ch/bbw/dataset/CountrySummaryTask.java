@@ -0,0 +1,155 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Summarizes a range of cities for a set of requested countries in a single pass.
+ * Ranges above a threshold are split in halves and summarized in parallel; the partial results are merged.
+ */
+final class CountrySummaryTask extends RecursiveTask<CountrySummaryTask.Accumulator[]> {
+
+  private static final int THRESHOLD = 8192;
+
+  private final CityColumns columns;
+  private final int[] slotOfCountry;
+  private final int slots;
+  private final int top;
+  private final int from;
+  private final int to;
+
+  /**
+   * Constructor for CountrySummaryTask.
+   *
+   * @param columns       the columns holding the cities
+   * @param slotOfCountry the result slot of every country dictionary code, or -1 if the country is not requested
+   * @param slots         the number of result slots
+   * @param top           the number of largest cities to keep per slot
+   * @param from          the first city of the range, inclusive
+   * @param to            the last city of the range, exclusive
+   */
+  CountrySummaryTask(CityColumns columns, int[] slotOfCountry, int slots, int top, int from, int to) {
+    this.columns = columns;
+    this.slotOfCountry = slotOfCountry;
+    this.slots = slots;
+    this.top = top;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  protected Accumulator[] compute() {
+    if (to - from > THRESHOLD) {
+      int middle = (from + to) >>> 1;
+      CountrySummaryTask left = new CountrySummaryTask(columns, slotOfCountry, slots, top, from, middle);
+      left.fork();
+      Accumulator[] right = new CountrySummaryTask(columns, slotOfCountry, slots, top, middle, to).compute();
+      Accumulator[] merged = left.join();
+      for (int slot = 0; slot < slots; slot++) {
+        merged[slot].merge(right[slot]);
+      }
+      return merged;
+    }
+
+    Accumulator[] accumulators = new Accumulator[slots];
+    for (int slot = 0; slot < slots; slot++) {
+      accumulators[slot] = new Accumulator(top);
+    }
+    for (int city = from; city < to; city++) {
+      int slot = slotOfCountry[columns.countryCode(city)];
+      if (slot >= 0) {
+        accumulators[slot].add(city, columns.populationAsOf(city, null));
+      }
+    }
+    return accumulators;
+  }
+
+  /**
+   * The running summary of one country: city count, population total and the largest cities so far,
+   * kept in a small array sorted by descending population.
+   */
+  static final class Accumulator {
+
+    private int cityCount;
+    private long totalPopulation;
+    private final int[] topCities;
+    private final long[] topPopulations;
+    private int topSize;
+
+    /**
+     * Constructor for Accumulator.
+     *
+     * @param top the number of largest cities to keep
+     */
+    private Accumulator(int top) {
+      this.topCities = new int[top];
+      this.topPopulations = new long[top];
+    }
+
+    /**
+     * Adds a city.
+     *
+     * @param city       the city index
+     * @param population the population of the city, or {@link CityColumns#NO_VALUE}
+     */
+    private void add(int city, long population) {
+      cityCount++;
+      if (population != CityColumns.NO_VALUE) {
+        totalPopulation += population;
+        offer(city, population);
+      }
+    }
+
+    /**
+     * Merges the summary of another range into this one.
+     *
+     * @param other the summary of the other range
+     */
+    private void merge(Accumulator other) {
+      cityCount += other.cityCount;
+      totalPopulation += other.totalPopulation;
+      for (int i = 0; i < other.topSize; i++) {
+        offer(other.topCities[i], other.topPopulations[i]);
+      }
+    }
+
+    /**
+     * Keeps a city if it is among the largest seen so far.
+     *
+     * @param city       the city index
+     * @param population the population of the city
+     */
+    private void offer(int city, long population) {
+      if (topSize == topCities.length && (topSize == 0 || population <= topPopulations[topSize - 1])) {
+        return;
+      }
+
+      int position = Math.min(topSize, topCities.length - 1);
+      while (position > 0 && topPopulations[position - 1] < population) {
+        topCities[position] = topCities[position - 1];
+        topPopulations[position] = topPopulations[position - 1];
+        position--;
+      }
+      topCities[position] = city;
+      topPopulations[position] = population;
+      topSize = Math.min(topSize + 1, topCities.length);
+    }
+
+    /**
+     * Returns the final summary.
+     *
+     * @param columns the columns holding the cities
+     * @return the summary
+     */
+    CountrySummary toSummary(CityColumns columns) {
+      List<CityResponse> cities = new ArrayList<>(topSize);
+      for (int i = 0; i < topSize; i++) {
+        cities.add(columns.view(topCities[i]));
+      }
+      return new CountrySummary(cityCount, totalPopulation, List.copyOf(cities));
+    }
+  }
+}
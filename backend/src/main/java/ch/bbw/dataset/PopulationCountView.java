@@ -0,0 +1,65 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.PopulationCountResponse;
+
+/**
+ * A read-only PopulationCountResponse backed by {@link CityColumns}.
+ */
+final class PopulationCountView extends PopulationCountResponse {
+
+  private final CityColumns columns;
+  private final int count;
+
+  /**
+   * Constructor for PopulationCountView.
+   *
+   * @param columns the columns holding the population count
+   * @param count   the population count index
+   */
+  PopulationCountView(CityColumns columns, int count) {
+    this.columns = columns;
+    this.count = count;
+  }
+
+  @Override
+  public Integer getYear() {
+    int year = columns.year(count);
+    return year == CityColumns.NO_YEAR ? null : year;
+  }
+
+  @Override
+  public Long getValue() {
+    long value = columns.value(count);
+    return value == CityColumns.NO_VALUE ? null : value;
+  }
+
+  @Override
+  public String getSex() {
+    return columns.sex(count);
+  }
+
+  @Override
+  public String getReliabilty() {
+    return columns.reliability(count);
+  }
+
+  @Override
+  public void setYear(Integer year) {
+    throw new UnsupportedOperationException("Population count views are read-only");
+  }
+
+  @Override
+  public void setValue(Long value) {
+    throw new UnsupportedOperationException("Population count views are read-only");
+  }
+
+  @Override
+  public void setSex(String sex) {
+    throw new UnsupportedOperationException("Population count views are read-only");
+  }
+
+  @Override
+  public void setReliabilty(String reliabilty) {
+    throw new UnsupportedOperationException("Population count views are read-only");
+  }
+}
@@ -0,0 +1,16 @@
+package ch.bbw.dtos;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CountryComparisonResponse {
+
+  String country;
+  CountryInfoResponse countryInfo;
+  int cityCount;
+  long totalPopulation;
+  List<CityResponse> topCities = new ArrayList<>();
+}
@@ -10,4 +10,6 @@ public class CountryInfoResponse {
   String capital;
   String flag;
   String dialCode;
+  String iso2;
+  String iso3;
 }
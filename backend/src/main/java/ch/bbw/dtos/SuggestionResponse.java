@@ -0,0 +1,12 @@
+package ch.bbw.dtos;
+
+import lombok.Data;
+
+@Data
+public class SuggestionResponse {
+
+  String type;
+  String name;
+  String country;
+  int distance;
+}
@@ -0,0 +1,33 @@
+package ch.bbw.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ChartFormat {
+
+  PNG("png", "image/png"),
+  SVG("svg", "image/svg+xml");
+
+  private final String value;
+  private final String mediaType;
+
+  ChartFormat(String value, String mediaType) {
+    this.value = value;
+    this.mediaType = mediaType;
+  }
+
+  /**
+   * Returns the chart format with the given request parameter value.
+   *
+   * @param value the request parameter value, e.g. svg
+   * @return the chart format, or null if the value is unknown
+   */
+  public static ChartFormat fromValue(String value) {
+    for (ChartFormat format : values()) {
+      if (format.value.equals(value)) {
+        return format;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,31 @@
+package ch.bbw.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum Metric {
+
+  POPULATION("population"),
+  YEAR("year");
+
+  private final String value;
+
+  Metric(String value) {
+    this.value = value;
+  }
+
+  /**
+   * Returns the metric with the given request parameter value.
+   *
+   * @param value the request parameter value, e.g. population
+   * @return the metric, or null if the value is unknown
+   */
+  public static Metric fromValue(String value) {
+    for (Metric metric : values()) {
+      if (metric.value.equals(value)) {
+        return metric;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,48 @@
+package ch.bbw.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum SortOrder {
+
+  NAME_ASC("nameAsc", Key.NAME, false),
+  NAME_DESC("nameDesc", Key.NAME, true),
+  POPULATION_ASC("populationAsc", Key.POPULATION, false),
+  POPULATION_DESC("populationDesc", Key.POPULATION, true),
+  YEAR_ASC("yearAsc", Key.YEAR, false),
+  YEAR_DESC("yearDesc", Key.YEAR, true);
+
+  /**
+   * The value a sort order orders the cities by.
+   */
+  public enum Key {
+    NAME,
+    POPULATION,
+    YEAR
+  }
+
+  private final String value;
+  private final Key key;
+  private final boolean descending;
+
+  SortOrder(String value, Key key, boolean descending) {
+    this.value = value;
+    this.key = key;
+    this.descending = descending;
+  }
+
+  /**
+   * Returns the sort order with the given request parameter value.
+   *
+   * @param value the request parameter value, e.g. nameAsc
+   * @return the sort order, or null if the value is unknown
+   */
+  public static SortOrder fromValue(String value) {
+    for (SortOrder sortOrder : values()) {
+      if (sortOrder.value.equals(value)) {
+        return sortOrder;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,362 @@
+package ch.bbw.service;
+
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.enums.ChartFormat;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.renderer.category.BarRenderer;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.svg.SVGGraphics2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for rendering city population charts of the biggest cities of a country, as selected by
+ * {@link CityService#getTopCitiesAsync}. Rendered charts are cached by a hash of the data they show and their format,
+ * so a chart is only rendered once per format as long as its data does not change.
+ * Charts are rendered as PNG, which is rasterized and compressed, or as SVG, which only writes the drawing commands.
+ * Requests render on a small, bounded pool of headless rendering threads rather than on the request threads;
+ * when its queue is full, further renders are rejected instead of piling up. The pool renders one throwaway chart
+ * at startup, so the first request does not pay for loading the AWT and JFreeChart classes and fonts.
+ */
+@Service
+public class ChartService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChartService.class);
+
+  /**
+   * The number of cities shown in a chart.
+   */
+  public static final int CHART_CITIES = 5;
+
+  /**
+   * The width of a chart in pixels.
+   */
+  private static final int WIDTH = 800;
+
+  /**
+   * The height of a chart in pixels.
+   */
+  private static final int HEIGHT = 600;
+
+  /**
+   * A rendered chart.
+   *
+   * @param key    the content hash of the charted data, the same for all formats
+   * @param format the format of the chart
+   * @param image  the encoded chart image
+   */
+  public record Chart(String key, ChartFormat format, byte[] image) {
+  }
+
+  private final Map<String, byte[]> cache;
+  private final Map<String, CompletableFuture<Chart>> rendering = new ConcurrentHashMap<>();
+  private final Map<ChartFormat, Timer> renderTimers = new EnumMap<>(ChartFormat.class);
+  private final ThreadPoolExecutor renderExecutor;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor for ChartService.
+   *
+   * @param cacheSize     the maximum number of rendered charts kept in memory
+   * @param renderThreads the number of threads rendering charts
+   * @param renderQueue   the maximum number of charts waiting for a rendering thread
+   * @param meterRegistry the registry metrics are recorded in
+   */
+  @Autowired
+  public ChartService(@Value("${country-stats.chart.cache-size:256}") int cacheSize,
+                      @Value("${country-stats.chart.render-threads:2}") int renderThreads,
+                      @Value("${country-stats.chart.render-queue:16}") int renderQueue,
+                      MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    for (ChartFormat format : ChartFormat.values()) {
+      renderTimers.put(format, Timer.builder("chart.render")
+          .description("Time spent rendering and encoding charts")
+          .tag("format", format.getValue())
+          .register(meterRegistry));
+    }
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+        return size() > cacheSize;
+      }
+    });
+    this.renderExecutor = new ThreadPoolExecutor(renderThreads, renderThreads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, renderQueue)), Thread.ofPlatform().name("chart-render-", 0).daemon().factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    Gauge.builder("chart.render.queue", renderExecutor, executor -> executor.getQueue().size())
+        .description("Charts waiting for a rendering thread")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Renders a throwaway chart in every format on the rendering threads once the application has started,
+   * so that the first chart request does not have to load and initialize the chart and imaging classes.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    Map<String, Long> sample = Map.of("Warm-up", 1L);
+    for (ChartFormat format : ChartFormat.values()) {
+      renderExecutor.execute(() -> {
+        long start = System.nanoTime();
+        try {
+          renderChart(sample, format);
+          LOGGER.info("Warmed up {} chart rendering in {} ms", format.getValue(),
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+          LOGGER.warn("Warming up {} chart rendering failed", format.getValue(), e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Stops the rendering threads.
+   */
+  @PreDestroy
+  public void close() {
+    renderExecutor.shutdownNow();
+  }
+
+  /**
+   * Computes the key of the chart for the given cities without rendering it.
+   *
+   * @param cities the biggest cities of a country, biggest first
+   * @return the content hash of the charted data, or null if there is nothing to chart
+   */
+  public String getChartKey(List<CityResponse> cities) {
+    Map<String, Long> cityPopulationMap = getChartData(cities);
+    return cityPopulationMap.isEmpty() ? null : hash(cityPopulationMap);
+  }
+
+  /**
+   * Returns the bar chart of the given cities, rendering it on the calling thread only if it is not cached yet.
+   * Only used by the benchmarks to measure rendering without the rendering threads; requests use
+   * {@link #getCityChartAsync(List, ChartFormat)}.
+   *
+   * @param cities the biggest cities of a country, biggest first
+   * @param format the format of the chart
+   * @return the rendered chart, or null if there is nothing to chart or rendering fails
+   */
+  public Chart getCityChart(List<CityResponse> cities, ChartFormat format) {
+    Map<String, Long> cityPopulationMap = getChartData(cities);
+    if (cityPopulationMap.isEmpty()) {
+      return null;
+    }
+
+    String key = hash(cityPopulationMap);
+    byte[] image = cache.get(cacheKey(key, format));
+    if (image == null) {
+      try {
+        image = render(cityPopulationMap, format);
+        cache.put(cacheKey(key, format), image);
+      } catch (IOException e) {
+        LOGGER.error("Error while creating chart image", e);
+        return null;
+      }
+    }
+
+    return new Chart(key, format, image);
+  }
+
+  /**
+   * Returns a future of the bar chart of the given cities. Cached charts are returned right away; others are
+   * rendered on the rendering threads, so the calling thread is never blocked. Requests for a chart that is already
+   * being rendered join that render instead of queueing another one.
+   *
+   * @param cities the biggest cities of a country, biggest first
+   * @param format the format of the chart
+   * @return a future of the rendered chart, completed with null if there is nothing to chart or rendering fails,
+   *     or failed with a {@link RejectedExecutionException} if too many charts are waiting to be rendered
+   */
+  public CompletableFuture<Chart> getCityChartAsync(List<CityResponse> cities, ChartFormat format) {
+    Map<String, Long> cityPopulationMap = getChartData(cities);
+    if (cityPopulationMap.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    String key = hash(cityPopulationMap);
+    String cacheKey = cacheKey(key, format);
+    byte[] image = cache.get(cacheKey);
+    if (image != null) {
+      return CompletableFuture.completedFuture(new Chart(key, format, image));
+    }
+
+    CompletableFuture<Chart> render = new CompletableFuture<>();
+    CompletableFuture<Chart> running = rendering.putIfAbsent(cacheKey, render);
+    if (running != null) {
+      meterRegistry.counter("chart.render.joined").increment();
+      return running.copy();
+    }
+
+    try {
+      renderExecutor.execute(() -> {
+        try {
+          byte[] rendered = cache.get(cacheKey); // A render that finished after the first lookup
+          if (rendered == null) {
+            rendered = render(cityPopulationMap, format);
+            cache.put(cacheKey, rendered);
+          }
+          rendering.remove(cacheKey, render);
+          render.complete(new Chart(key, format, rendered));
+        } catch (IOException | RuntimeException e) {
+          LOGGER.error("Error while creating chart image", e);
+          rendering.remove(cacheKey, render);
+          render.complete(null);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      meterRegistry.counter("chart.render.rejected").increment();
+      rendering.remove(cacheKey, render);
+      render.completeExceptionally(e);
+    }
+    return render.copy();
+  }
+
+  /**
+   * Returns the cache key of a chart.
+   *
+   * @param key    the content hash of the charted data
+   * @param format the format of the chart
+   * @return the cache key
+   */
+  private static String cacheKey(String key, ChartFormat format) {
+    return key + '.' + format.getValue();
+  }
+
+  /**
+   * Collects the charted data of the given cities, keeping their order.
+   *
+   * @param cities the biggest cities of a country, biggest first
+   * @return the city names and populations of at most {@link #CHART_CITIES} cities
+   */
+  private Map<String, Long> getChartData(List<CityResponse> cities) {
+    Map<String, Long> cityPopulationMap = new LinkedHashMap<>();
+    for (CityResponse city : cities) {
+      if (cityPopulationMap.size() == CHART_CITIES) {
+        break;
+      }
+      if (!city.getPopulationCounts().isEmpty() && city.getPopulationCounts().getFirst().getValue() != null) {
+        cityPopulationMap.putIfAbsent(city.getCity(), city.getPopulationCounts().getFirst().getValue());
+      }
+    }
+    return cityPopulationMap;
+  }
+
+  /**
+   * Renders a bar chart of the given city populations, recording the render time.
+   *
+   * @param cityPopulationMap the city names and populations to chart
+   * @param format            the format of the chart
+   * @return the encoded chart image
+   * @throws IOException if the image cannot be encoded
+   */
+  private byte[] render(Map<String, Long> cityPopulationMap, ChartFormat format) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return renderChart(cityPopulationMap, format);
+    } finally {
+      renderTimers.get(format).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Renders a bar chart of the given city populations, without recording metrics.
+   *
+   * @param cityPopulationMap the city names and populations to chart
+   * @param format            the format of the chart
+   * @return the encoded chart image
+   * @throws IOException if the image cannot be encoded
+   */
+  private byte[] renderChart(Map<String, Long> cityPopulationMap, ChartFormat format) throws IOException {
+    DefaultCategoryDataset dataset = createDataset(cityPopulationMap);
+
+    JFreeChart barChart = ChartFactory.createBarChart(
+        "Biggest Cities",
+        "Cities",
+        "Population count",
+        dataset,
+        PlotOrientation.VERTICAL,
+        false, true, false);
+
+    CategoryPlot plot = (CategoryPlot) barChart.getPlot();
+    BarRenderer renderer = (BarRenderer) plot.getRenderer();
+    renderer.setSeriesPaint(0, new java.awt.Color(79, 129, 189));
+
+    if (format == ChartFormat.SVG) {
+      SVGGraphics2D svg = new SVGGraphics2D(WIDTH, HEIGHT);
+      barChart.draw(svg, new Rectangle(0, 0, WIDTH, HEIGHT));
+      return svg.getSVGDocument().getBytes(StandardCharsets.UTF_8);
+    }
+
+    BufferedImage chartImage = barChart.createBufferedImage(WIDTH, HEIGHT);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ImageIO.write(chartImage, "png", baos);
+
+    return baos.toByteArray();
+  }
+
+  /**
+   * Creates a dataset for the bar chart from the given city population map.
+   *
+   * @param cityPopulationMap a map containing city names as keys and their population counts as values
+   * @return a DefaultCategoryDataset object for the bar chart
+   */
+  private DefaultCategoryDataset createDataset(Map<String, Long> cityPopulationMap) {
+    DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+
+    cityPopulationMap.forEach((city, population) ->
+        dataset.addValue(population, "Values", city));
+
+    return dataset;
+  }
+
+  /**
+   * Computes a content hash of the charted data.
+   *
+   * @param cityPopulationMap the city names and populations to chart
+   * @return the first 128 bits of the SHA-256 hash as hex string
+   */
+  private String hash(Map<String, Long> cityPopulationMap) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      cityPopulationMap.forEach((city, population) ->
+          digest.update((city + '\0' + population + '\n').getBytes(StandardCharsets.UTF_8)));
+      return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -1,23 +1,37 @@
 package ch.bbw.service;
 
+import ch.bbw.dataset.CityColumns;
+import ch.bbw.dataset.CityCursor;
+import ch.bbw.dataset.CityDataset;
+import ch.bbw.dataset.CityPage;
+import ch.bbw.dataset.CountryAggregate;
+import ch.bbw.dataset.CountrySummary;
 import ch.bbw.dtos.CityResponse;
-import ch.bbw.dtos.ApiCityResponse;
+import ch.bbw.dtos.SuggestionResponse;
+import ch.bbw.enums.Metric;
+import ch.bbw.enums.SortOrder;
 import ch.bbw.util.APIClient;
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.CategoryPlot;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.renderer.category.BarRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import ch.bbw.util.CountryNames;
+import ch.bbw.util.Futures;
+import ch.bbw.util.JsonArrayStreamer;
+import ch.bbw.util.RefreshingSnapshot;
+import ch.bbw.util.SnapshotFile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service for handling city-related operations.
@@ -25,15 +39,38 @@ import java.util.stream.Collectors;
 @Service
 public class CityService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CityService.class);
+  private static final String ENDPOINT = "countries/population/cities/";
+
   private final APIClient apiClient;
+  private final RefreshingSnapshot<CityDataset> snapshot;
+  private final Path snapshotFile;
+  private final MeterRegistry meterRegistry;
+  private volatile APIClient.StreamedContent loadedContent;
 
   /**
    * Constructor for CityService.
-   * Initializes the API client with a base URL and a timeout.
+   * Creates the shared city dataset snapshot on top of the shared API client,
+   * which is seeded from the snapshot file of the last run if there is one.
+   * If the snapshot is disabled, neither it nor its background refresh is created.
+   *
+   * @param ttl               the time after which the city dataset is refreshed in the background
+   * @param snapshotEnabled   whether the whole city dataset is kept in memory; if disabled, every request
+   *                          streams the upstream payload and only keeps the cities of the requested country
+   * @param snapshotDirectory the directory the last loaded dataset is persisted to, or blank to not persist it
+   * @param apiClient         the shared client of the upstream API
+   * @param meterRegistry     the registry metrics are recorded in
    */
   @Autowired
-  public CityService() {
-    this.apiClient = new APIClient("https://countriesnow.space/api/v0.1", 10);
+  public CityService(@Value("${country-stats.cities.ttl:1h}") Duration ttl,
+                     @Value("${country-stats.cities.snapshot-enabled:true}") boolean snapshotEnabled,
+                     @Value("${country-stats.snapshot.directory:}") String snapshotDirectory,
+                     APIClient apiClient, MeterRegistry meterRegistry) {
+    this.apiClient = apiClient;
+    this.snapshot = snapshotEnabled ? new RefreshingSnapshot<>("cities", this::loadDataset, ttl) : null;
+    this.snapshotFile = snapshotEnabled && !snapshotDirectory.isBlank() ? Path.of(snapshotDirectory, "cities.bin") : null;
+    this.meterRegistry = meterRegistry;
+    restoreDataset();
   }
 
   /**
@@ -48,106 +85,277 @@ public class CityService {
   public List<CityResponse> getCitiesByCountry(String country, String sortOrder)
       throws IOException, InterruptedException {
 
-    List<CityResponse> cities = getApiResponse().getData().stream()
-        .filter(cityResponse -> country.equalsIgnoreCase(cityResponse.getCountry()))
-        .collect(Collectors.toList());
-
-    switch (sortOrder) {
-      case "nameAsc":
-        cities.sort(Comparator.comparing(CityResponse::getCity));
-        break;
-      case "nameDesc":
-        cities.sort(Comparator.comparing(CityResponse::getCity).reversed());
-        break;
-      case "populationAsc":
-        cities.sort(Comparator.comparing(city -> city.getPopulationCounts().getFirst().getValue()));
-        break;
-      case "populationDesc":
-        cities.sort(Comparator.comparing((CityResponse city) -> city.getPopulationCounts().getFirst().getValue()).reversed());
-        break;
-      case "yearAsc":
-        cities.sort(Comparator.comparing(city -> city.getPopulationCounts().getFirst().getYear()));
-        break;
-      case "yearDesc":
-        cities.sort(Comparator.comparing((CityResponse city) -> city.getPopulationCounts().getFirst().getYear()).reversed());
-        break;
+    return Futures.await(getCitiesByCountryAsync(country, sortOrder));
+  }
+
+  /**
+   * Returns a future of the list of cities for the specified country in the order delivered by the API.
+   * Does not block the calling thread.
+   *
+   * @param country the name of the country
+   * @return a future of a list of CityResponse objects
+   */
+  public CompletableFuture<List<CityResponse>> getCitiesByCountryAsync(String country) {
+    return (snapshot != null ? snapshot.getAsync() : fetchCities(country))
+        .thenApply(dataset -> dataset.getCities(country));
+  }
+
+  /**
+   * Returns a future of the list of cities for the specified country, sorted according to the given sort order.
+   * Does not block the calling thread.
+   *
+   * @param country   the name of the country
+   * @param sortOrder the sort order for the city list (nameAsc, nameDesc, populationAsc, populationDesc, yearAsc, yearDesc)
+   * @return a future of a list of CityResponse objects
+   */
+  public CompletableFuture<List<CityResponse>> getCitiesByCountryAsync(String country, String sortOrder) {
+    return getCitiesByCountryAsync(country, sortOrder, null);
+  }
+
+  /**
+   * Returns a future of the list of cities for the specified country as of a year, sorted according to the given
+   * sort order. The population series of the returned cities only hold the counts up to the year.
+   * Does not block the calling thread.
+   *
+   * @param country   the name of the country
+   * @param sortOrder the sort order for the city list (nameAsc, nameDesc, populationAsc, populationDesc, yearAsc, yearDesc)
+   * @param year      the year, or null for each city's latest population count
+   * @return a future of a list of CityResponse objects
+   */
+  public CompletableFuture<List<CityResponse>> getCitiesByCountryAsync(String country, String sortOrder, Integer year) {
+    SortOrder order = SortOrder.fromValue(sortOrder);
+
+    return (snapshot != null ? snapshot.getAsync() : fetchCities(country))
+        .thenApply(dataset -> sortCities(dataset, country, order, year));
+  }
+
+  /**
+   * Returns a future of one page of the cities of the specified country. Does not block the calling thread.
+   *
+   * @param country   the name of the country
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the year to sort by the populations of, or null for each city's latest population count
+   * @param after     the cursor of the previous page, or null for the first page
+   * @param limit     the maximum number of cities of the page
+   * @return a future of the page, completed with null if the country is unknown
+   */
+  public CompletableFuture<CityPage> getCityPageAsync(String country, SortOrder sortOrder, Integer year,
+                                                     CityCursor after, int limit) {
+    return (snapshot != null ? snapshot.getAsync() : fetchCities(country))
+        .thenApply(dataset -> dataset.getPage(country, sortOrder, year, after, limit));
+  }
+
+  /**
+   * Returns a future of the k cities of the specified country with the largest or smallest value of a metric,
+   * selected with a bounded heap instead of a sort. Does not block the calling thread.
+   *
+   * @param country   the name of the country
+   * @param k         the maximum number of cities
+   * @param metric    the metric to rank by
+   * @param year      the year to rank the cities as of, or null for each city's latest population count
+   * @param ascending whether to select the smallest values rather than the largest
+   * @return a future of the selected cities, best first, completed with null if the country is unknown
+   */
+  public CompletableFuture<List<CityResponse>> getTopCitiesAsync(String country, int k, Metric metric, Integer year,
+                                                                 boolean ascending) {
+    return (snapshot != null ? snapshot.getAsync() : fetchCities(country))
+        .thenApply(dataset -> dataset.topK(country, k, metric, year, ascending));
+  }
+
+  /**
+   * Returns a future of the aggregate statistics of the specified country, precomputed when the dataset was loaded.
+   * Does not block the calling thread.
+   *
+   * @param country the name of the country
+   * @return a future of the aggregate, completed with null if the country is unknown
+   */
+  public CompletableFuture<CountryAggregate> getCountryAggregateAsync(String country) {
+    return (snapshot != null ? snapshot.getAsync() : fetchCities(country))
+        .thenApply(dataset -> dataset.getAggregate(country));
+  }
+
+  /**
+   * Returns a future of the cities whose names start with, or nearly start with, the text typed so far.
+   * Does not block the calling thread. Suggestions need the whole city dataset in memory, so there are none
+   * if the dataset snapshot is disabled.
+   *
+   * @param query the text typed so far
+   * @param limit the maximum number of suggestions
+   * @return a future of the suggestions, best first
+   */
+  public CompletableFuture<List<SuggestionResponse>> suggestCitiesAsync(String query, int limit) {
+    if (snapshot == null) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+    return snapshot.getAsync().thenApply(dataset -> dataset.suggest(query, limit));
+  }
+
+  /**
+   * Returns a future of the summaries of several countries, computed in a single pass over the city dataset.
+   * Does not block the calling thread.
+   *
+   * @param countries the names of the countries
+   * @param top       the number of largest cities to return per country
+   * @return a future of the summaries keyed by the requested names; unknown countries are left out
+   */
+  public CompletableFuture<Map<String, CountrySummary>> summarizeCountriesAsync(List<String> countries, int top) {
+    return (snapshot != null ? snapshot.getAsync() : fetchCities(countries))
+        .thenApply(dataset -> dataset.summarize(countries, top));
+  }
+
+  /**
+   * Returns since when the served city dataset is stale, because refreshing it from the API failed.
+   *
+   * @return the time the served dataset was loaded if it is stale, or null if it is current
+   */
+  public Instant getStaleSince() {
+    return snapshot != null ? snapshot.getStaleSince() : null;
+  }
+
+  /**
+   * Returns the version number of the served city dataset, which changes whenever a dataset with new content is
+   * loaded.
+   *
+   * @return the version number, or -1 if no dataset is loaded yet or every request fetches its own cities
+   */
+  public long getDatasetVersion() {
+    return snapshot != null ? snapshot.getVersion() : -1;
+  }
+
+  /**
+   * Returns the cities of a country from a dataset in the given sort order, recording the time it takes.
+   *
+   * @param dataset   the dataset holding the cities
+   * @param country   the name of the country
+   * @param sortOrder the sort order, or null for the order delivered by the API
+   * @param year      the year, or null for each city's latest population count
+   * @return the sorted cities
+   */
+  private List<CityResponse> sortCities(CityDataset dataset, String country, SortOrder sortOrder, Integer year) {
+    return Timer.builder("cities.sort")
+        .description("Time spent ordering the cities of a country")
+        .tag("sortOrder", sortOrder == null ? "none" : sortOrder.getValue())
+        .register(meterRegistry)
+        .record(() -> dataset.getCities(country, sortOrder, year));
+  }
+
+  /**
+   * Starts fetching the cities of all countries and indexing them. If a dataset is already loaded, the request is
+   * conditional and the loaded dataset is kept when the upstream content has not changed. The validators of a
+   * response are only kept for the next refresh once its dataset has been built, so a response that fails to build
+   * is requested again in full.
+   *
+   * @param previous the currently served dataset, or null on the first load
+   * @return a future of the indexed city dataset
+   */
+  private CompletableFuture<CityDataset> loadDataset(CityDataset previous) {
+    CityDataset.Builder builder = new CityDataset.Builder();
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Content-Type", "application/json");
+
+    APIClient.StreamedContent since = previous == null ? null : loadedContent;
+    return apiClient.streamIfModifiedAsync(ENDPOINT, headers, "data", CityResponse.class,
+        JsonArrayStreamer.ElementFilter.acceptAll(), builder::add, since).thenApply(streamed -> {
+      if (streamed.notModified()) {
+        return previous;
+      }
+
+      CityDataset dataset = Timer.builder("cities.dataset.build")
+          .description("Time spent indexing and sorting a loaded city dataset")
+          .register(meterRegistry)
+          .record(() -> builder.build(previous));
+      loadedContent = streamed;
+      meterRegistry.counter("cities.aggregates.recomputed").increment(dataset.getRecomputedAggregates());
+      LOGGER.info("Loaded {} cities, recomputed the aggregates of {} of {} countries",
+          dataset.size(), dataset.getRecomputedAggregates(), dataset.countryCount());
+      persistDataset(dataset);
+      return dataset;
+    });
+  }
+
+  /**
+   * Seeds the city dataset snapshot from the snapshot file of the last run, if there is a valid one.
+   */
+  private void restoreDataset() {
+    if (snapshotFile == null) {
+      return;
     }
 
-    return cities;
+    long start = System.nanoTime();
+    SnapshotFile.Contents<CityColumns> contents = SnapshotFile.read(snapshotFile, CityColumns.SNAPSHOT_TYPE, CityColumns::read);
+    if (contents != null) {
+      CityDataset dataset = CityDataset.of(contents.value());
+      LOGGER.info("Restored {} cities from {} in {} ms",
+          dataset.size(), snapshotFile, Duration.ofNanos(System.nanoTime() - start).toMillis());
+      snapshot.seed(dataset, contents.createdAt());
+    }
   }
 
   /**
-   * Generates a bar chart image for the population of the given cities and returns it as a Base64 encoded string.
+   * Writes a loaded city dataset to the snapshot file. A failure is logged, the dataset is served regardless.
    *
-   * @param cities the list of cities to include in the chart
-   * @return a Base64 encoded string of the chart image, or null if an error occurs
+   * @param dataset the loaded dataset
    */
-  public String getCityChart(List<CityResponse> cities) {
+  private void persistDataset(CityDataset dataset) {
+    if (snapshotFile == null) {
+      return;
+    }
+
     try {
-      Map<String, Long> cityPopulationMap = cities.stream()
-          .filter(cityResponse -> !cityResponse.getPopulationCounts().isEmpty())
-          .sorted((c1, c2) -> Long.compare(
-              c2.getPopulationCounts().getFirst().getValue(),
-              c1.getPopulationCounts().getFirst().getValue()))
-          .limit(5)
-          .collect(Collectors.toMap(
-              CityResponse::getCity,
-              cityResponse -> cityResponse.getPopulationCounts().getFirst().getValue()
-          ));
-
-      DefaultCategoryDataset dataset = createDataset(cityPopulationMap);
-
-      JFreeChart barChart = ChartFactory.createBarChart(
-          "Biggest Cities",
-          "Cities",
-          "Population count",
-          dataset,
-          PlotOrientation.VERTICAL,
-          false, true, false);
-
-      CategoryPlot plot = (CategoryPlot) barChart.getPlot();
-      BarRenderer renderer = (BarRenderer) plot.getRenderer();
-      renderer.setSeriesPaint(0, new java.awt.Color(79, 129, 189));
-
-      BufferedImage chartImage = barChart.createBufferedImage(800, 600);
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      ImageIO.write(chartImage, "png", baos);
-
-      return Base64.getEncoder().encodeToString(baos.toByteArray());
+      SnapshotFile.write(snapshotFile, CityColumns.SNAPSHOT_TYPE, dataset.getColumns()::write);
     } catch (IOException e) {
-      System.out.println("Error while creating chart image:" + e);
-      return null;
+      LOGGER.warn("Writing the city snapshot {} failed", snapshotFile, e);
     }
   }
 
   /**
-   * Fetches the API response containing city data.
+   * Starts fetching only the cities of the given country. Cities of other countries are skipped while
+   * parsing and never bound to objects.
    *
-   * @return an ApiCityResponse object containing the city data
-   * @throws IOException          if an I/O error occurs
-   * @throws InterruptedException if the operation is interrupted
+   * @param country the name of the country
+   * @return a future of a dataset holding only the country's cities
    */
-  private ApiCityResponse getApiResponse() throws IOException, InterruptedException {
-    final String endpoint = "countries/population/cities/";
+  private CompletableFuture<CityDataset> fetchCities(String country) {
+    return fetchCities(List.of(country));
+  }
 
-    Map<String, String> headers = new HashMap<>();
-    headers.put("Content-Type", "application/json");
+  /**
+   * Starts fetching only the cities of the given countries. Cities of other countries are skipped while
+   * parsing and never bound to objects.
+   *
+   * @param countries the names of the countries
+   * @return a future of a dataset holding only the countries' cities
+   */
+  private CompletableFuture<CityDataset> fetchCities(List<String> countries) {
+    final Set<String> keys = new HashSet<>();
+    countries.forEach(country -> keys.add(CountryNames.key(country)));
 
-    return apiClient.get(endpoint, headers, ApiCityResponse.class);
+    CityDataset.Builder builder = new CityDataset.Builder();
+    return streamCities(new JsonArrayStreamer.ElementFilter("country", name -> keys.contains(CountryNames.key(name))), builder::add)
+        .thenApply(count -> builder.build());
   }
 
   /**
-   * Creates a dataset for the bar chart from the given city population map.
+   * Starts streaming the cities of the API response to a sink.
    *
-   * @param cityPopulationMap a map containing city names as keys and their population counts as values
-   * @return a DefaultCategoryDataset object for the bar chart
+   * @param filter the filter deciding which cities are bound
+   * @param sink   the consumer receiving the accepted cities
+   * @return a future of the number of accepted cities
    */
-  private DefaultCategoryDataset createDataset(Map<String, Long> cityPopulationMap) {
-    DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+  private CompletableFuture<Integer> streamCities(JsonArrayStreamer.ElementFilter filter, Consumer<CityResponse> sink) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Content-Type", "application/json");
 
-    cityPopulationMap.forEach((city, population) ->
-        dataset.addValue(population, "Values", city));
+    return apiClient.streamAsync(ENDPOINT, headers, "data", CityResponse.class, filter, sink);
+  }
 
-    return dataset;
+  /**
+   * Stops the background refresh of the city dataset.
+   */
+  @PreDestroy
+  public void close() {
+    if (snapshot != null) {
+      snapshot.close();
+    }
   }
 }
@@ -1,14 +1,30 @@
 package ch.bbw.service;
 
+import ch.bbw.dataset.CountryInfoTable;
 import ch.bbw.dtos.ApiInfoResponse;
 import ch.bbw.dtos.CountryInfoResponse;
+import ch.bbw.dtos.SuggestionResponse;
 import ch.bbw.util.APIClient;
+import ch.bbw.util.Futures;
+import ch.bbw.util.RefreshingSnapshot;
+import ch.bbw.util.SnapshotFile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for handling country information related operations.
@@ -16,21 +32,50 @@ import java.util.Map;
 @Service
 public class CountryInfoService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CountryInfoService.class);
+
   private final APIClient apiClient;
+  private final RefreshingSnapshot<CountryInfoTable> snapshot;
+  private final Path snapshotFile;
 
   /**
    * Constructor for CountryInfoService.
-   * Initializes the API client with a base URL and a timeout.
+   * Creates the shared country information table on top of the shared API client,
+   * which is seeded from the snapshot file of the last run if there is one.
+   *
+   * @param ttl               the time after which the country information is refreshed in the background
+   * @param snapshotDirectory the directory the last loaded table is persisted to, or blank to not persist it
+   * @param apiClient         the shared client of the upstream API
    */
   @Autowired
-  public CountryInfoService() {
-    this.apiClient = new APIClient("https://countriesnow.space/api/v0.1", 10);
+  public CountryInfoService(@Value("${country-stats.country-info.ttl:24h}") Duration ttl,
+                            @Value("${country-stats.snapshot.directory:}") String snapshotDirectory,
+                            APIClient apiClient) {
+    this.apiClient = apiClient;
+    this.snapshot = new RefreshingSnapshot<>("country-info", this::loadTable, ttl);
+    this.snapshotFile = snapshotDirectory.isBlank() ? null : Path.of(snapshotDirectory, "country-info.bin");
+    restoreTable();
   }
 
   /**
-   * Fetches and returns information about the specified country.
+   * Loads the country information table once the application has started,
+   * so that the first page view does not have to wait for it.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    try {
+      snapshot.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      LOGGER.warn("Warming up the country information failed, loading it on first use", e);
+    }
+  }
+
+  /**
+   * Returns information about the specified country.
    *
-   * @param country the name of the country
+   * @param country the name or ISO code of the country
    * @return a CountryInfoResponse object containing information about the country, or null if not found
    * @throws IOException          if an I/O error occurs
    * @throws InterruptedException if the operation is interrupted
@@ -38,24 +83,127 @@ public class CountryInfoService {
   public CountryInfoResponse getCountryInfo(String country)
       throws IOException, InterruptedException {
 
-    return getApiResponse().getData().stream()
-        .filter(infoResponse -> country.equalsIgnoreCase(infoResponse.getName()))
-        .findFirst().orElse(null);
+    return Futures.await(getCountryInfoAsync(country));
   }
 
   /**
-   * Fetches the API response containing country information.
+   * Returns a future of the information about the specified country. Does not block the calling thread.
    *
-   * @return an ApiInfoResponse object containing country information
-   * @throws IOException          if an I/O error occurs
-   * @throws InterruptedException if the operation is interrupted
+   * @param country the name or ISO code of the country
+   * @return a future of the country information, completed with null if not found
+   */
+  public CompletableFuture<CountryInfoResponse> getCountryInfoAsync(String country) {
+    return snapshot.getAsync().thenApply(table -> table.find(country));
+  }
+
+  /**
+   * Returns a future of the countries whose names start with, or nearly start with, the text typed so far.
+   * Does not block the calling thread.
+   *
+   * @param query the text typed so far
+   * @param limit the maximum number of suggestions
+   * @return a future of the suggestions, best first
+   */
+  public CompletableFuture<List<SuggestionResponse>> suggestCountriesAsync(String query, int limit) {
+    return snapshot.getAsync().thenApply(table -> table.suggest(query, limit));
+  }
+
+  /**
+   * Returns since when the served country information is stale, because refreshing it from the API failed.
+   *
+   * @return the time the served information was loaded if it is stale, or null if it is current
+   */
+  public Instant getStaleSince() {
+    return snapshot.getStaleSince();
+  }
+
+  /**
+   * Returns the version number of the served country information table, which changes whenever a table with new
+   * content is loaded.
+   *
+   * @return the version number, or -1 if no table is loaded yet
+   */
+  public long getTableVersion() {
+    return snapshot.getVersion();
+  }
+
+  /**
+   * Stops the background refresh of the country information.
+   */
+  @PreDestroy
+  public void close() {
+    snapshot.close();
+  }
+
+  /**
+   * Starts fetching the country information and indexing it. If the fetched information equals the currently
+   * served table, including a 304 answered with the previous response, the served table is kept and not persisted
+   * again.
+   *
+   * @param previous the currently served table, or null on the first load
+   * @return a future of the indexed country information table
+   */
+  private CompletableFuture<CountryInfoTable> loadTable(CountryInfoTable previous) {
+    long start = System.nanoTime();
+    return getApiResponse().thenApply(response -> {
+      if (previous != null && previous.hasCountries(response.getData())) {
+        return previous;
+      }
+
+      CountryInfoTable table = CountryInfoTable.of(response.getData(), Duration.ofNanos(System.nanoTime() - start));
+
+      LOGGER.info("Loaded {} countries in {} ms", table.size(), table.getLoadTime().toMillis());
+      persistTable(table);
+      return table;
+    });
+  }
+
+  /**
+   * Seeds the country information snapshot from the snapshot file of the last run, if there is a valid one.
+   */
+  private void restoreTable() {
+    if (snapshotFile == null) {
+      return;
+    }
+
+    SnapshotFile.Contents<CountryInfoTable> contents =
+        SnapshotFile.read(snapshotFile, CountryInfoTable.SNAPSHOT_TYPE, CountryInfoTable::read);
+    if (contents != null) {
+      CountryInfoTable table = contents.value();
+      LOGGER.info("Restored {} countries from {} in {} ms", table.size(), snapshotFile, table.getLoadTime().toMillis());
+      snapshot.seed(table, contents.createdAt());
+    }
+  }
+
+  /**
+   * Writes a loaded country information table to the snapshot file. A failure is logged, the table is served
+   * regardless.
+   *
+   * @param table the loaded table
+   */
+  private void persistTable(CountryInfoTable table) {
+    if (snapshotFile == null) {
+      return;
+    }
+
+    try {
+      SnapshotFile.write(snapshotFile, CountryInfoTable.SNAPSHOT_TYPE, table::write);
+    } catch (IOException e) {
+      LOGGER.warn("Writing the country information snapshot {} failed", snapshotFile, e);
+    }
+  }
+
+  /**
+   * Starts fetching the API response containing country information.
+   *
+   * @return a future of an ApiInfoResponse object containing country information
    */
-  private ApiInfoResponse getApiResponse() throws IOException, InterruptedException {
-    final String endpoint = "countries/info?returns=currency,flag,dialCode,capital";
+  private CompletableFuture<ApiInfoResponse> getApiResponse() {
+    final String endpoint = "countries/info?returns=currency,flag,dialCode,capital,iso2,iso3";
 
     Map<String, String> headers = new HashMap<>();
     headers.put("Content-Type", "application/json");
 
-    return apiClient.get(endpoint, headers, ApiInfoResponse.class);
+    return apiClient.getAsync(endpoint, headers, ApiInfoResponse.class);
   }
 }
@@ -1,38 +1,192 @@
 package ch.bbw.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import javax.net.ssl.SSLContext;
+
+import ch.bbw.config.UpstreamProperties;
 import ch.bbw.enums.Method;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * A utility class for making HTTP requests to an API.
- * Provides methods for sending GET, POST, PUT, and DELETE requests.
+ * Provides blocking and non-blocking methods for sending GET, POST, PUT, and DELETE requests.
+ * The non-blocking methods deserialize responses on a configurable executor instead of the HTTP client's threads.
+ * Request durations, response sizes and deserialization times are recorded as Micrometer metrics.
+ * Responses may be transferred gzip or deflate compressed. The ETag and Last-Modified validators of parsed GET
+ * responses are remembered per URI, so that repeated GET requests are conditional and a 304 reuses the previous result.
+ * Streamed responses are not remembered: the conditional streaming methods return their validators, and the caller
+ * passes them back once it has successfully processed the streamed content.
+ * <p>
+ * Failures are handled in three layers: idempotent requests failing with an I/O error, 429 or 5xx status are retried
+ * with jittered exponential backoff; a GET request still unanswered after the endpoint's 95th percentile latency is
+ * duplicated and the first response wins (hedging); and after too many consecutive failures a circuit breaker
+ * rejects requests with a {@link CircuitOpenException} until a trial request succeeds again.
+ * <p>
+ * Concurrent identical GET requests for a parsed response are coalesced: only the first one is sent, and every caller
+ * arriving while it is in flight shares its result or failure. Like results reused after a 304, shared results must
+ * be treated as read-only.
  */
 public class APIClient {
+  /**
+   * The element count of a streamed response whose content has not changed since the validators the request was
+   * made conditional with.
+   */
+  public static final int NOT_MODIFIED = -1;
+
+  private static final String STATUS_IO_ERROR = "IO_ERROR";
+  private static final int STATUS_NOT_MODIFIED = 304;
+
   private final String baseUrl;
   private final HttpClient httpClient;
   private final ObjectMapper objectMapper;
+  private final JsonArrayStreamer jsonArrayStreamer;
+  private final Executor responseExecutor;
+  private final MeterRegistry meterRegistry;
+  private final String basePath;
+  private final Map<URI, Validators> validators = new ConcurrentHashMap<>();
+  private final Map<FlightKey, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+  private final UpstreamProperties.Retry retry;
+  private final UpstreamProperties.Hedge hedge;
+  private final CircuitBreaker circuitBreaker;
+  private final LatencyTracker latencies = new LatencyTracker();
+  private final Duration requestTimeout;
 
   /**
-   * Constructs an APIClient with the specified base URL and timeout.
+   * The validators of a successful GET response.
    *
-   * @param baseUrl the base URL for the API
-   * @param timeout the timeout duration in seconds for the HTTP client
+   * @param etag         the ETag header, or null
+   * @param lastModified the Last-Modified header, or null
+   * @param body         the parsed body, or null if the validators are those of a streamed response
    */
-  public APIClient(String baseUrl, Integer timeout) {
-    this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
-    this.httpClient = HttpClient.newBuilder()
-        .connectTimeout(Duration.ofSeconds(timeout))
-        .followRedirects(HttpClient.Redirect.ALWAYS)
-        .build();
+  private record Validators(String etag, String lastModified, Object body) {
+  }
+
+  /**
+   * The outcome of a streamed response, holding the validators a later conditional stream is made with.
+   *
+   * @param count        the number of elements passed to the sink, or {@link #NOT_MODIFIED}
+   * @param etag         the ETag header, or null
+   * @param lastModified the Last-Modified header, or null
+   */
+  public record StreamedContent(int count, String etag, String lastModified) {
+
+    /**
+     * Returns whether the content has not changed since the validators the request was made conditional with.
+     *
+     * @return true for a 304 response
+     */
+    public boolean notModified() {
+      return count == NOT_MODIFIED;
+    }
+  }
+
+  /**
+   * The identity of a coalesced request: requests with equal keys receive the same response.
+   *
+   * @param method       the HTTP method
+   * @param uri          the request URI, including the query
+   * @param headers      the request headers
+   * @param timeout      the request timeout, or null if the request has none
+   * @param responseType the class the response is parsed to
+   */
+  private record FlightKey(String method, URI uri, Map<String, List<String>> headers, Duration timeout,
+                           Class<?> responseType) {
+  }
+
+  /**
+   * Constructs an APIClient from the upstream configuration that sends its requests with the given HTTP client.
+   * Clients sharing an HTTP client share its connections; the application builds its single client, on its single
+   * HTTP client, in {@link ch.bbw.config.UpstreamConfig}.
+   *
+   * @param upstream         the upstream configuration
+   * @param httpClient       the HTTP client to send requests with
+   * @param responseExecutor the executor non-blocking requests deserialize their responses on
+   * @param meterRegistry    the registry request metrics are recorded in
+   */
+  public APIClient(UpstreamProperties upstream, HttpClient httpClient, Executor responseExecutor,
+                   MeterRegistry meterRegistry) {
+    this.responseExecutor = responseExecutor;
+    this.meterRegistry = meterRegistry;
+    this.baseUrl = upstream.getBaseUrl().endsWith("/") ? upstream.getBaseUrl() : upstream.getBaseUrl() + "/";
+    this.basePath = URI.create(this.baseUrl).getPath();
+    this.httpClient = httpClient;
+    this.requestTimeout = upstream.getRequestTimeout();
     this.objectMapper = new ObjectMapper();
+    this.jsonArrayStreamer = new JsonArrayStreamer(objectMapper);
+    this.retry = upstream.getRetry();
+    this.hedge = upstream.getHedge();
+    this.circuitBreaker = new CircuitBreaker(this.baseUrl, upstream.getCircuitBreaker().getFailureThreshold(),
+        upstream.getCircuitBreaker().getOpenDuration());
+  }
+
+  /**
+   * Creates an HTTP client for the upstream API, preferring HTTP/2 and following redirects.
+   * Every TLS connection the client opens is counted in the upstream.connections metric; compared to the
+   * upstream.exchanges metric, which counts every request sent including retries and hedges, it shows how many
+   * requests reuse a connection. Plain HTTP connections cannot be observed and are not counted.
+   *
+   * @param upstream      the upstream configuration providing the connect timeout
+   * @param executor      the executor the client runs its tasks on, or null for the client's default
+   * @param meterRegistry the registry the connection metric is recorded in
+   * @return the HTTP client
+   */
+  public static HttpClient newHttpClient(UpstreamProperties upstream, Executor executor, MeterRegistry meterRegistry) {
+    Counter connections = Counter.builder("upstream.connections")
+        .description("TLS connections opened to the upstream API")
+        .register(meterRegistry);
+    HttpClient.Builder builder = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(upstream.getConnectTimeout())
+        .followRedirects(HttpClient.Redirect.ALWAYS)
+        .sslContext(new CountingSslContext(defaultSslContext(), connections::increment));
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the default SSLContext of the JVM.
+   *
+   * @return the context
+   */
+  private static SSLContext defaultSslContext() {
+    try {
+      return SSLContext.getDefault();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("No default SSLContext is available", e);
+    }
   }
 
   /**
@@ -51,6 +205,9 @@ public class APIClient {
         .timeout(timeout);
 
     headers.forEach(builder::header);
+    if (headers.keySet().stream().noneMatch("Accept-Encoding"::equalsIgnoreCase)) {
+      builder.header("Accept-Encoding", "gzip, deflate");
+    }
 
     switch (method) {
       case GET:
@@ -82,24 +239,654 @@ public class APIClient {
    */
   private <T> T sendRequest(HttpRequest request, Class<T> responseType)
       throws IOException, InterruptedException {
-    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    long start = System.nanoTime();
+    String status = STATUS_IO_ERROR;
+    String protocol = STATUS_IO_ERROR;
+    Validators cached = cachedBody(request, responseType);
+    try {
+      HttpResponse<byte[]> response =
+          Futures.await(exchangeAsync(conditional(request, cached), HttpResponse.BodyHandlers.ofByteArray()));
+      status = String.valueOf(response.statusCode());
+      protocol = protocolOf(response);
+      return parseResponse(request, response, responseType, cached);
+    } finally {
+      recordRequest(request, status, protocol, start);
+    }
+  }
+
+  /**
+   * Sends an HTTP request without blocking and parses the response to the specified type on the response executor.
+   *
+   * @param request      the HttpRequest to send
+   * @param responseType the class of the response type
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  private <T> CompletableFuture<T> sendRequestAsync(HttpRequest request, Class<T> responseType) {
+    long start = System.nanoTime();
+    Validators cached = cachedBody(request, responseType);
+    CompletableFuture<HttpResponse<byte[]>> response =
+        exchangeAsync(conditional(request, cached), HttpResponse.BodyHandlers.ofByteArray());
+    return response
+        .thenApplyAsync(received -> {
+          try {
+            return parseResponse(request, received, responseType, cached);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, responseExecutor)
+        .whenComplete((result, error) -> recordRequest(request, statusOf(response), protocolOf(response), start));
+  }
+
+  /**
+   * Parses a received response to the specified type. A 304 response returns the cached result of the
+   * conditional request instead.
+   *
+   * @param request      the HttpRequest the response belongs to
+   * @param response     the received HttpResponse
+   * @param responseType the class of the response type
+   * @param cached       the validators the request was made conditional with, or null
+   * @param <T>          the type of the response
+   * @return the parsed response of type T
+   * @throws IOException if the body cannot be parsed
+   */
+  private <T> T parseResponse(HttpRequest request, HttpResponse<byte[]> response, Class<T> responseType,
+                              Validators cached) throws IOException {
     int statusCode = response.statusCode();
-    if (statusCode >= 200 && statusCode < 300) {
-      return objectMapper.readValue(response.body(), responseType);
+    byte[] body = response.body();
+    recordResponseBytes(request, body.length);
+    if (statusCode == STATUS_NOT_MODIFIED && cached != null) {
+      return responseType.cast(cached.body());
+    } else if (statusCode >= 200 && statusCode < 300) {
+      long start = System.nanoTime();
+      try {
+        T parsed = objectMapper.readValue(decode(response, new ByteArrayInputStream(body)), responseType);
+        remember(request, response, parsed);
+        return parsed;
+      } finally {
+        recordDeserialization(request, start);
+      }
     } else {
-      handleErrorResponse(response);
+      handleErrorResponse(statusCode, readError(response, new ByteArrayInputStream(body)));
       return null; // Unreachable code, handleErrorResponse always throws
     }
   }
 
   /**
-   * Handles error responses by throwing appropriate runtime exceptions.
+   * Sends a request unless an identical one is already in flight, in which case its response is shared.
+   * Requests only count as identical if they also have the same timeout, so no caller waits on a request sent with
+   * a longer timeout than its own.
+   * Every caller gets its own copy of the shared future, so a caller timing out or cancelling does not affect
+   * the others.
+   *
+   * @param request      the HttpRequest to send
+   * @param responseType the class of the response type
+   * @param send         starts sending the request if none is in flight
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  private <T> CompletableFuture<T> coalesce(HttpRequest request, Class<T> responseType,
+                                            Supplier<CompletableFuture<T>> send) {
+    FlightKey key = new FlightKey(request.method(), request.uri(), request.headers().map(),
+        request.timeout().orElse(null), responseType);
+    CompletableFuture<T> flight = new CompletableFuture<>();
+    @SuppressWarnings("unchecked")
+    CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, flight);
+    if (running != null) {
+      meterRegistry.counter("upstream.coalesced", "endpoint", endpointOf(request)).increment();
+      return running.copy();
+    }
+
+    CompletableFuture<T> sent;
+    try {
+      sent = send.get();
+    } catch (RuntimeException e) {
+      sent = CompletableFuture.failedFuture(e);
+    }
+    sent.whenComplete((result, error) -> {
+      inFlight.remove(key, flight);
+      if (error != null) {
+        flight.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+      } else {
+        flight.complete(result);
+      }
+    });
+    return flight.copy();
+  }
+
+  /**
+   * Sends an HTTP request and streams the elements of an array field in the response body to a sink,
+   * without reading the whole body into memory.
+   *
+   * @param request     the HttpRequest to send
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param since       the content the request is made conditional on, or null for an unconditional request
+   * @param <T>         the type of the elements
+   * @return the streamed content
+   * @throws IOException          if an I/O error occurs
+   * @throws InterruptedException if the operation is interrupted
+   */
+  private <T> StreamedContent streamRequest(HttpRequest request, String arrayField, Class<T> elementType,
+                                            JsonArrayStreamer.ElementFilter filter, Consumer<? super T> sink,
+                                            StreamedContent since)
+      throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    String status = STATUS_IO_ERROR;
+    String protocol = STATUS_IO_ERROR;
+    try {
+      HttpResponse<InputStream> response = Futures.await(exchangeAsync(
+          conditional(request, since), HttpResponse.BodyHandlers.ofInputStream()));
+      status = String.valueOf(response.statusCode());
+      protocol = protocolOf(response);
+      return readStream(request, response, arrayField, elementType, filter, sink);
+    } finally {
+      recordRequest(request, status, protocol, start);
+    }
+  }
+
+  /**
+   * Sends an HTTP request without blocking and streams the elements of an array field in the response body
+   * to a sink on the response executor.
    *
-   * @param response the HttpResponse to handle
+   * @param request     the HttpRequest to send
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param since       the content the request is made conditional on, or null for an unconditional request
+   * @param <T>         the type of the elements
+   * @return a future of the streamed content
    */
-  private void handleErrorResponse(HttpResponse<String> response) {
+  private <T> CompletableFuture<StreamedContent> streamRequestAsync(HttpRequest request, String arrayField,
+                                                                   Class<T> elementType,
+                                                                   JsonArrayStreamer.ElementFilter filter,
+                                                                   Consumer<? super T> sink, StreamedContent since) {
+    long start = System.nanoTime();
+    CompletableFuture<HttpResponse<InputStream>> response = exchangeAsync(
+        conditional(request, since), HttpResponse.BodyHandlers.ofInputStream());
+    return response
+        .thenApplyAsync(received -> {
+          try {
+            return readStream(request, received, arrayField, elementType, filter, sink);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, responseExecutor)
+        .whenComplete((result, error) -> recordRequest(request, statusOf(response), protocolOf(response), start));
+  }
+
+  /**
+   * Streams the elements of an array field in a received response body to a sink.
+   * The validators of the response are returned rather than remembered, since only the caller knows whether it
+   * could process the streamed content.
+   *
+   * @param request     the HttpRequest the response belongs to
+   * @param response    the received HttpResponse
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param <T>         the type of the elements
+   * @return the streamed content, with {@link #NOT_MODIFIED} elements for a 304 response
+   * @throws IOException if the body cannot be read or parsed
+   */
+  private <T> StreamedContent readStream(HttpRequest request, HttpResponse<InputStream> response, String arrayField,
+                             Class<T> elementType, JsonArrayStreamer.ElementFilter filter, Consumer<? super T> sink)
+      throws IOException {
     int statusCode = response.statusCode();
-    String responseBody = response.body();
+    try (CountingInputStream body = new CountingInputStream(response.body())) {
+      if (statusCode == STATUS_NOT_MODIFIED) {
+        return streamedContent(response, NOT_MODIFIED);
+      } else if (statusCode >= 200 && statusCode < 300) {
+        long start = System.nanoTime();
+        try {
+          return streamedContent(response,
+              jsonArrayStreamer.stream(decode(response, body), arrayField, elementType, filter, sink));
+        } finally {
+          recordDeserialization(request, start);
+          recordResponseBytes(request, body.getCount());
+        }
+      } else {
+        handleErrorResponse(statusCode, readError(response, body));
+        return null; // Unreachable code, handleErrorResponse always throws
+      }
+    }
+  }
+
+  /**
+   * Collects the validators of a streamed response.
+   *
+   * @param response the received HttpResponse
+   * @param count    the number of elements passed to the sink, or {@link #NOT_MODIFIED}
+   * @return the streamed content
+   */
+  private static StreamedContent streamedContent(HttpResponse<?> response, int count) {
+    return new StreamedContent(count, response.headers().firstValue("ETag").orElse(null),
+        response.headers().firstValue("Last-Modified").orElse(null));
+  }
+
+  /**
+   * Sends a request through the circuit breaker, retrying and hedging it as configured.
+   * A response with a 5xx or 429 status after the last attempt counts as a failure for the circuit breaker,
+   * but is still returned so that its body can be reported.
+   *
+   * @param request the request
+   * @param handler the handler of the response body
+   * @param <B>     the type of the response body
+   * @return a future of the response, failed with a {@link CircuitOpenException} if the circuit is open
+   */
+  private <B> CompletableFuture<HttpResponse<B>> exchangeAsync(HttpRequest request, HttpResponse.BodyHandler<B> handler) {
+    if (!circuitBreaker.tryAcquire()) {
+      meterRegistry.counter("upstream.circuit.rejected", "endpoint", endpointOf(request)).increment();
+      return CompletableFuture.failedFuture(
+          new CircuitOpenException("Circuit of " + baseUrl + " is open, not sending " + request.uri()));
+    }
+
+    return sendWithRetries(request, handler, 1).whenComplete((response, error) -> {
+      if (error == null && !isRetryable(response.statusCode())) {
+        circuitBreaker.onSuccess();
+      } else {
+        circuitBreaker.onFailure();
+      }
+    });
+  }
+
+  /**
+   * Sends a request, retrying an idempotent request after a jittered exponential backoff as long as it fails
+   * with an I/O error or a retryable status and attempts are left.
+   *
+   * @param request the request
+   * @param handler the handler of the response body
+   * @param attempt the number of the attempt, starting with 1
+   * @param <B>     the type of the response body
+   * @return a future of the response of the last attempt
+   */
+  private <B> CompletableFuture<HttpResponse<B>> sendWithRetries(HttpRequest request, HttpResponse.BodyHandler<B> handler,
+                                                               int attempt) {
+    return sendHedged(request, handler).handle((response, error) -> {
+      Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+      boolean retryable = cause == null ? isRetryable(response.statusCode()) : cause instanceof IOException;
+      if (!retryable || attempt >= retry.getMaxAttempts() || !isIdempotent(request)) {
+        return cause == null ? CompletableFuture.completedFuture(response) : CompletableFuture.<HttpResponse<B>>failedFuture(cause);
+      }
+
+      discard(response);
+      meterRegistry.counter("upstream.retries", "endpoint", endpointOf(request)).increment();
+      Executor delayed = CompletableFuture.delayedExecutor(backoff(attempt), TimeUnit.MILLISECONDS, responseExecutor);
+      return CompletableFuture.runAsync(() -> { }, delayed)
+          .thenCompose(ignored -> sendWithRetries(request, handler, attempt + 1));
+    }).thenCompose(Function.identity());
+  }
+
+  /**
+   * Sends a request and, if it is a GET request still unanswered after the 95th percentile latency of its endpoint,
+   * a duplicate of it. The first successful or 304 response wins; the other request is cancelled, or its response
+   * discarded. An unsuccessful response, like a failure, only settles the result once no other request is left,
+   * so a 429 or 5xx does not win against a duplicate that may still succeed. The request fails only if both do.
+   *
+   * @param request the request
+   * @param handler the handler of the response body
+   * @param <B>     the type of the response body
+   * @return a future of the first response
+   */
+  private <B> CompletableFuture<HttpResponse<B>> sendHedged(HttpRequest request, HttpResponse.BodyHandler<B> handler) {
+    String endpoint = endpointOf(request);
+    long p95 = latencies.percentile(endpoint, 0.95, hedge.getMinSamples());
+    if (!hedge.isEnabled() || !"GET".equals(request.method()) || p95 < 0) {
+      return sendTimed(request, handler, endpoint);
+    }
+
+    CompletableFuture<HttpResponse<B>> result = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(1);
+    AtomicReference<HttpResponse<B>> unsuccessful = new AtomicReference<>();
+    result.whenComplete((response, error) -> {
+      HttpResponse<B> held = unsuccessful.getAndSet(null);
+      if (held != response) {
+        discard(held);
+      }
+    });
+    CompletableFuture<HttpResponse<B>> primary = sendTimed(request, handler, endpoint);
+    primary.whenComplete((response, error) -> settle(result, pending, unsuccessful, response, error));
+
+    long delay = Math.max(p95, hedge.getMinDelay().toNanos());
+    CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, responseExecutor).execute(() -> {
+      if (result.isDone()) {
+        return;
+      }
+
+      pending.incrementAndGet();
+      meterRegistry.counter("upstream.hedges", "endpoint", endpoint).increment();
+      CompletableFuture<HttpResponse<B>> hedged = sendTimed(request, handler, endpoint);
+      hedged.whenComplete((response, error) -> settle(result, pending, unsuccessful, response, error));
+      result.whenComplete((response, error) -> {
+        primary.cancel(true);
+        hedged.cancel(true);
+      });
+    });
+    return result;
+  }
+
+  /**
+   * Completes the result of a hedged request with the outcome of one of its requests. A successful or 304 response
+   * completes it right away; an unsuccessful response or a failure only once no other request is running, with the
+   * first unsuccessful response preferred over a failure.
+   *
+   * @param result       the result of the hedged request
+   * @param pending      the number of requests still running
+   * @param unsuccessful the first unsuccessful response held back while another request is running
+   * @param response     the response of the request, or null if it failed
+   * @param error        the failure of the request, or null
+   * @param <B>          the type of the response body
+   */
+  private static <B> void settle(CompletableFuture<HttpResponse<B>> result, AtomicInteger pending,
+                                 AtomicReference<HttpResponse<B>> unsuccessful, HttpResponse<B> response,
+                                 Throwable error) {
+    if (error == null && isAnswered(response.statusCode())) {
+      pending.decrementAndGet();
+      if (!result.complete(response)) {
+        discard(response);
+      }
+      return;
+    }
+
+    if (error == null && !unsuccessful.compareAndSet(null, response)) {
+      discard(response);
+    }
+    if (pending.decrementAndGet() == 0) {
+      HttpResponse<B> held = unsuccessful.getAndSet(null);
+      if (held != null) {
+        if (!result.complete(held)) {
+          discard(held);
+        }
+      } else if (error != null) {
+        result.completeExceptionally(error); // Without an error, a successful response already took the held one
+      }
+    }
+  }
+
+  /**
+   * Returns whether a status settles a hedged request right away.
+   *
+   * @param statusCode the HTTP status code
+   * @return true for 2xx and 304 statuses
+   */
+  private static boolean isAnswered(int statusCode) {
+    return statusCode >= 200 && statusCode < 300 || statusCode == STATUS_NOT_MODIFIED;
+  }
+
+  /**
+   * Sends a single request, counting it as an exchange, and records the time until its response headers arrived
+   * for hedging.
+   *
+   * @param request  the request
+   * @param handler  the handler of the response body
+   * @param endpoint the endpoint of the request
+   * @param <B>      the type of the response body
+   * @return a future of the response, cancelling it cancels the request
+   */
+  private <B> CompletableFuture<HttpResponse<B>> sendTimed(HttpRequest request, HttpResponse.BodyHandler<B> handler,
+                                                         String endpoint) {
+    long start = System.nanoTime();
+    meterRegistry.counter("upstream.exchanges", "endpoint", endpoint).increment();
+    CompletableFuture<HttpResponse<B>> response = httpClient.sendAsync(request, handler);
+    response.thenRun(() -> latencies.record(endpoint, System.nanoTime() - start));
+    return response;
+  }
+
+  /**
+   * Returns the backoff before a retry: a random delay of up to the exponentially growing base delay (full jitter).
+   *
+   * @param attempt the number of the failed attempt, starting with 1
+   * @return the backoff in milliseconds
+   */
+  private long backoff(int attempt) {
+    long ceiling = Math.min(retry.getMaxDelay().toMillis(), retry.getBaseDelay().toMillis() << Math.min(attempt - 1, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  /**
+   * Checks whether a response status indicates a transient upstream failure.
+   *
+   * @param statusCode the status code
+   * @return true for 429 and 5xx statuses
+   */
+  private static boolean isRetryable(int statusCode) {
+    return statusCode == 429 || statusCode >= 500;
+  }
+
+  /**
+   * Checks whether a request may be sent more than once.
+   *
+   * @param request the request
+   * @return true for GET, PUT and DELETE requests
+   */
+  private static boolean isIdempotent(HttpRequest request) {
+    return switch (request.method()) {
+      case "GET", "PUT", "DELETE" -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * Releases the connection of a response that will not be read.
+   *
+   * @param response the response, or null
+   */
+  private static void discard(HttpResponse<?> response) {
+    if (response != null && response.body() instanceof InputStream body) {
+      try {
+        body.close();
+      } catch (IOException ignored) {
+        // The response is thrown away anyway
+      }
+    }
+  }
+
+  /**
+   * Returns the remembered validators of a GET request if they hold a parsed body of the expected type.
+   *
+   * @param request      the request
+   * @param responseType the class of the response type
+   * @return the validators, or null if the request cannot be made conditional
+   */
+  private Validators cachedBody(HttpRequest request, Class<?> responseType) {
+    if (!"GET".equals(request.method())) {
+      return null;
+    }
+    Validators cached = validators.get(request.uri());
+    return cached != null && responseType.isInstance(cached.body()) ? cached : null;
+  }
+
+  /**
+   * Makes a request conditional by adding the If-None-Match and If-Modified-Since headers.
+   *
+   * @param request the request
+   * @param cached  the validators of the last response, or null to send the request unchanged
+   * @return the conditional request
+   */
+  private static HttpRequest conditional(HttpRequest request, Validators cached) {
+    if (cached == null) {
+      return request;
+    }
+
+    HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+    if (cached.etag() != null) {
+      builder.header("If-None-Match", cached.etag());
+    }
+    if (cached.lastModified() != null) {
+      builder.header("If-Modified-Since", cached.lastModified());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Makes a request conditional on the validators of a previously streamed response.
+   *
+   * @param request the request
+   * @param since   the previously streamed content, or null to send the request unchanged
+   * @return the conditional request
+   */
+  private static HttpRequest conditional(HttpRequest request, StreamedContent since) {
+    return conditional(request, since == null ? null : new Validators(since.etag(), since.lastModified(), null));
+  }
+
+  /**
+   * Remembers the validators of a successful GET response, if it has any.
+   *
+   * @param request  the request
+   * @param response the successful response
+   * @param body     the parsed body
+   */
+  private void remember(HttpRequest request, HttpResponse<?> response, Object body) {
+    if (!"GET".equals(request.method())) {
+      return;
+    }
+
+    String etag = response.headers().firstValue("ETag").orElse(null);
+    String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+    if (etag != null || lastModified != null) {
+      validators.put(request.uri(), new Validators(etag, lastModified, body));
+    } else {
+      validators.remove(request.uri());
+    }
+  }
+
+  /**
+   * Wraps a response body in a decoder for its Content-Encoding.
+   *
+   * @param response the response
+   * @param body     the raw body
+   * @return the decoded body
+   * @throws IOException if the compressed body is malformed
+   */
+  private static InputStream decode(HttpResponse<?> response, InputStream body) throws IOException {
+    String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+    return switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip", "x-gzip" -> new GZIPInputStream(body, 8192);
+      case "deflate" -> new InflaterInputStream(body);
+      default -> body;
+    };
+  }
+
+  /**
+   * Reads an error response body for the exception message.
+   *
+   * @param response the response
+   * @param body     the raw body
+   * @return the decoded body, or an empty string if there is none
+   * @throws IOException if an I/O error occurs
+   */
+  private static String readError(HttpResponse<?> response, InputStream body) throws IOException {
+    byte[] raw = body.readAllBytes();
+    if (raw.length == 0) {
+      return "";
+    }
+    return new String(decode(response, new ByteArrayInputStream(raw)).readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Records the duration of an upstream request, tagged by endpoint, method, status and HTTP version.
+   *
+   * @param request  the sent HttpRequest
+   * @param status   the status code of the response, or IO_ERROR if none was received
+   * @param protocol the HTTP version the response was received with, or IO_ERROR if none was received
+   * @param start    the System.nanoTime() value when the request was sent
+   */
+  private void recordRequest(HttpRequest request, String status, String protocol, long start) {
+    Timer.builder("upstream.requests")
+        .description("Upstream API requests, including reading and parsing the response")
+        .tag("endpoint", endpointOf(request))
+        .tag("method", request.method())
+        .tag("status", status)
+        .tag("protocol", protocol)
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the size of an upstream response body.
+   *
+   * @param request the sent HttpRequest
+   * @param bytes   the number of body bytes received
+   */
+  private void recordResponseBytes(HttpRequest request, long bytes) {
+    DistributionSummary.builder("upstream.response.size")
+        .description("Upstream API response body sizes")
+        .baseUnit("bytes")
+        .tag("endpoint", endpointOf(request))
+        .register(meterRegistry)
+        .record(bytes);
+  }
+
+  /**
+   * Records the time spent deserializing an upstream response.
+   *
+   * @param request the sent HttpRequest
+   * @param start   the System.nanoTime() value when deserialization started
+   */
+  private void recordDeserialization(HttpRequest request, long start) {
+    Timer.builder("upstream.deserialization")
+        .description("Time spent deserializing upstream API responses")
+        .tag("endpoint", endpointOf(request))
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the endpoint of a request relative to the base URL, without query parameters.
+   *
+   * @param request the request
+   * @return the endpoint, used as metric tag
+   */
+  private String endpointOf(HttpRequest request) {
+    String path = request.uri().getPath();
+    return path.startsWith(basePath) ? path.substring(basePath.length()) : path;
+  }
+
+  /**
+   * Returns the status of an asynchronously received response for tagging.
+   *
+   * @param response the future of the response
+   * @return the status code, or IO_ERROR if no response was received
+   */
+  private static String statusOf(CompletableFuture<? extends HttpResponse<?>> response) {
+    return response.isDone() && !response.isCompletedExceptionally()
+        ? String.valueOf(response.join().statusCode())
+        : STATUS_IO_ERROR;
+  }
+
+  /**
+   * Returns the HTTP version of a response for tagging.
+   *
+   * @param response the response
+   * @return the HTTP version, such as HTTP_2
+   */
+  private static String protocolOf(HttpResponse<?> response) {
+    return response.version().name();
+  }
+
+  /**
+   * Returns the HTTP version of an asynchronously received response for tagging.
+   *
+   * @param response the future of the response
+   * @return the HTTP version, or IO_ERROR if no response was received
+   */
+  private static String protocolOf(CompletableFuture<? extends HttpResponse<?>> response) {
+    return response.isDone() && !response.isCompletedExceptionally()
+        ? protocolOf(response.join())
+        : STATUS_IO_ERROR;
+  }
+
+  /**
+   * Handles error responses by throwing appropriate runtime exceptions.
+   *
+   * @param statusCode   the status code of the response
+   * @param responseBody the body of the response
+   */
+  private void handleErrorResponse(int statusCode, String responseBody) {
     if (statusCode >= 400 && statusCode < 500) {
       throw new RuntimeException("Client error: " + statusCode + " - " + responseBody);
     } else if (statusCode >= 500) {
@@ -124,7 +911,57 @@ public class APIClient {
   public <T> T get(String endpoint, Map<String, String> headers, Class<T> responseType, Duration timeout)
       throws IOException, InterruptedException {
     HttpRequest request = buildRequest(Method.GET, endpoint, headers, null, timeout);
-    return sendRequest(request, responseType);
+    return Futures.await(coalesce(request, responseType, () -> sendRequestAsync(request, responseType)));
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers and streams the elements of an array field
+   * in the response to a sink. Elements rejected by the filter are skipped without being bound.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param timeout     the timeout duration for the request
+   * @param <T>         the type of the elements
+   * @return the number of elements passed to the sink
+   * @throws IOException          if an I/O error occurs
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public <T> int stream(String endpoint, Map<String, String> headers, String arrayField, Class<T> elementType,
+                        JsonArrayStreamer.ElementFilter filter, Consumer<? super T> sink, Duration timeout)
+      throws IOException, InterruptedException {
+    HttpRequest request = buildRequest(Method.GET, endpoint, headers, null, timeout);
+    return streamRequest(request, arrayField, elementType, filter, sink, null).count();
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers and streams the elements of an array field
+   * in the response to a sink, unless the content has not changed since a previously streamed response.
+   * The caller is expected to still hold the result of that response, and to keep the returned content for the next
+   * call only once it has successfully processed the streamed elements.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param since       the previously streamed content, or null for an unconditional request
+   * @param timeout     the timeout duration for the request
+   * @param <T>         the type of the elements
+   * @return the streamed content, {@link StreamedContent#notModified()} if nothing was streamed
+   * @throws IOException          if an I/O error occurs
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public <T> StreamedContent streamIfModified(String endpoint, Map<String, String> headers, String arrayField,
+                                              Class<T> elementType, JsonArrayStreamer.ElementFilter filter,
+                                              Consumer<? super T> sink, StreamedContent since, Duration timeout)
+      throws IOException, InterruptedException {
+    HttpRequest request = buildRequest(Method.GET, endpoint, headers, null, timeout);
+    return streamRequest(request, arrayField, elementType, filter, sink, since);
   }
 
   /**
@@ -185,7 +1022,7 @@ public class APIClient {
 
   /**
    * Sends a GET request to the specified endpoint with headers and parses the response.
-   * Uses a default timeout of 10 seconds.
+   * Uses the configured request timeout.
    *
    * @param endpoint     the API endpoint
    * @param headers      the headers to include in the request
@@ -197,12 +1034,57 @@ public class APIClient {
    */
   public <T> T get(String endpoint, Map<String, String> headers, Class<T> responseType)
       throws IOException, InterruptedException {
-    return get(endpoint, headers, responseType, Duration.ofSeconds(10));
+    return get(endpoint, headers, responseType, requestTimeout);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers and streams the elements of an array field
+   * in the response to a sink. Uses the configured request timeout.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param <T>         the type of the elements
+   * @return the number of elements passed to the sink
+   * @throws IOException          if an I/O error occurs
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public <T> int stream(String endpoint, Map<String, String> headers, String arrayField, Class<T> elementType,
+                        JsonArrayStreamer.ElementFilter filter, Consumer<? super T> sink)
+      throws IOException, InterruptedException {
+    return stream(endpoint, headers, arrayField, elementType, filter, sink, requestTimeout);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers and streams the elements of an array field
+   * in the response to a sink, unless the content has not changed since a previously streamed response.
+   * Uses the configured request timeout.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param since       the previously streamed content, or null for an unconditional request
+   * @param <T>         the type of the elements
+   * @return the streamed content, {@link StreamedContent#notModified()} if nothing was streamed
+   * @throws IOException          if an I/O error occurs
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public <T> StreamedContent streamIfModified(String endpoint, Map<String, String> headers, String arrayField,
+                                              Class<T> elementType, JsonArrayStreamer.ElementFilter filter,
+                                              Consumer<? super T> sink, StreamedContent since)
+      throws IOException, InterruptedException {
+    return streamIfModified(endpoint, headers, arrayField, elementType, filter, sink, since, requestTimeout);
   }
 
   /**
    * Sends a POST request to the specified endpoint with headers, body, and parses the response.
-   * Uses a default timeout of 10 seconds.
+   * Uses the configured request timeout.
    *
    * @param endpoint     the API endpoint
    * @param headers      the headers to include in the request
@@ -215,12 +1097,12 @@ public class APIClient {
    */
   public <T> T post(String endpoint, Map<String, String> headers, String body, Class<T> responseType)
       throws IOException, InterruptedException {
-    return post(endpoint, headers, body, responseType, Duration.ofSeconds(10));
+    return post(endpoint, headers, body, responseType, requestTimeout);
   }
 
   /**
    * Sends a PUT request to the specified endpoint with headers, body, and parses the response.
-   * Uses a default timeout of 10 seconds.
+   * Uses the configured request timeout.
    *
    * @param endpoint     the API endpoint
    * @param headers      the headers to include in the request
@@ -233,12 +1115,12 @@ public class APIClient {
    */
   public <T> T put(String endpoint, Map<String, String> headers, String body, Class<T> responseType)
       throws IOException, InterruptedException {
-    return put(endpoint, headers, body, responseType, Duration.ofSeconds(10));
+    return put(endpoint, headers, body, responseType, requestTimeout);
   }
 
   /**
    * Sends a DELETE request to the specified endpoint with headers and parses the response.
-   * Uses a default timeout of 10 seconds.
+   * Uses the configured request timeout.
    *
    * @param endpoint     the API endpoint
    * @param headers      the headers to include in the request
@@ -250,6 +1132,217 @@ public class APIClient {
    */
   public <T> T delete(String endpoint, Map<String, String> headers, Class<T> responseType)
       throws IOException, InterruptedException {
-    return delete(endpoint, headers, responseType, Duration.ofSeconds(10));
+    return delete(endpoint, headers, responseType, requestTimeout);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers without blocking.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param responseType the class of the response type
+   * @param timeout      the timeout duration for the request
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> getAsync(String endpoint, Map<String, String> headers, Class<T> responseType,
+                                           Duration timeout) {
+    HttpRequest request = buildRequest(Method.GET, endpoint, headers, null, timeout);
+    return coalesce(request, responseType, () -> sendRequestAsync(request, responseType));
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers without blocking and streams the elements
+   * of an array field in the response to a sink. Elements rejected by the filter are skipped without being bound.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param timeout     the timeout duration for the request
+   * @param <T>         the type of the elements
+   * @return a future of the number of elements passed to the sink
+   */
+  public <T> CompletableFuture<Integer> streamAsync(String endpoint, Map<String, String> headers, String arrayField,
+                                                    Class<T> elementType, JsonArrayStreamer.ElementFilter filter,
+                                                    Consumer<? super T> sink, Duration timeout) {
+    HttpRequest request = buildRequest(Method.GET, endpoint, headers, null, timeout);
+    return streamRequestAsync(request, arrayField, elementType, filter, sink, null).thenApply(StreamedContent::count);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers without blocking and streams the elements
+   * of an array field in the response to a sink, unless the content has not changed since a previously streamed
+   * response. The caller is expected to still hold the result of that response, and to keep the returned content
+   * for the next call only once it has successfully processed the streamed elements.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param since       the previously streamed content, or null for an unconditional request
+   * @param timeout     the timeout duration for the request
+   * @param <T>         the type of the elements
+   * @return a future of the streamed content, {@link StreamedContent#notModified()} if nothing was streamed
+   */
+  public <T> CompletableFuture<StreamedContent> streamIfModifiedAsync(String endpoint, Map<String, String> headers,
+                                                                      String arrayField, Class<T> elementType,
+                                                                      JsonArrayStreamer.ElementFilter filter,
+                                                                      Consumer<? super T> sink, StreamedContent since,
+                                                                      Duration timeout) {
+    HttpRequest request = buildRequest(Method.GET, endpoint, headers, null, timeout);
+    return streamRequestAsync(request, arrayField, elementType, filter, sink, since);
+  }
+
+  /**
+   * Sends a POST request to the specified endpoint with headers and body without blocking.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param body         the body of the request
+   * @param responseType the class of the response type
+   * @param timeout      the timeout duration for the request
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> postAsync(String endpoint, Map<String, String> headers, String body,
+                                            Class<T> responseType, Duration timeout) {
+    return sendRequestAsync(buildRequest(Method.POST, endpoint, headers, body, timeout), responseType);
+  }
+
+  /**
+   * Sends a PUT request to the specified endpoint with headers and body without blocking.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param body         the body of the request
+   * @param responseType the class of the response type
+   * @param timeout      the timeout duration for the request
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> putAsync(String endpoint, Map<String, String> headers, String body,
+                                           Class<T> responseType, Duration timeout) {
+    return sendRequestAsync(buildRequest(Method.PUT, endpoint, headers, body, timeout), responseType);
+  }
+
+  /**
+   * Sends a DELETE request to the specified endpoint with headers without blocking.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param responseType the class of the response type
+   * @param timeout      the timeout duration for the request
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> deleteAsync(String endpoint, Map<String, String> headers, Class<T> responseType,
+                                              Duration timeout) {
+    return sendRequestAsync(buildRequest(Method.DELETE, endpoint, headers, null, timeout), responseType);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers without blocking.
+   * Uses the configured request timeout.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param responseType the class of the response type
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> getAsync(String endpoint, Map<String, String> headers, Class<T> responseType) {
+    return getAsync(endpoint, headers, responseType, requestTimeout);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers without blocking and streams the elements
+   * of an array field in the response to a sink. Uses the configured request timeout.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param <T>         the type of the elements
+   * @return a future of the number of elements passed to the sink
+   */
+  public <T> CompletableFuture<Integer> streamAsync(String endpoint, Map<String, String> headers, String arrayField,
+                                                    Class<T> elementType, JsonArrayStreamer.ElementFilter filter,
+                                                    Consumer<? super T> sink) {
+    return streamAsync(endpoint, headers, arrayField, elementType, filter, sink, requestTimeout);
+  }
+
+  /**
+   * Sends a GET request to the specified endpoint with headers without blocking and streams the elements
+   * of an array field in the response to a sink, unless the content has not changed since a previously streamed
+   * response. Uses the configured request timeout.
+   *
+   * @param endpoint    the API endpoint
+   * @param headers     the headers to include in the request
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param since       the previously streamed content, or null for an unconditional request
+   * @param <T>         the type of the elements
+   * @return a future of the streamed content, {@link StreamedContent#notModified()} if nothing was streamed
+   */
+  public <T> CompletableFuture<StreamedContent> streamIfModifiedAsync(String endpoint, Map<String, String> headers,
+                                                                      String arrayField, Class<T> elementType,
+                                                                      JsonArrayStreamer.ElementFilter filter,
+                                                                      Consumer<? super T> sink, StreamedContent since) {
+    return streamIfModifiedAsync(endpoint, headers, arrayField, elementType, filter, sink, since, requestTimeout);
+  }
+
+  /**
+   * Sends a POST request to the specified endpoint with headers and body without blocking.
+   * Uses the configured request timeout.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param body         the body of the request
+   * @param responseType the class of the response type
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> postAsync(String endpoint, Map<String, String> headers, String body,
+                                            Class<T> responseType) {
+    return postAsync(endpoint, headers, body, responseType, requestTimeout);
+  }
+
+  /**
+   * Sends a PUT request to the specified endpoint with headers and body without blocking.
+   * Uses the configured request timeout.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param body         the body of the request
+   * @param responseType the class of the response type
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> putAsync(String endpoint, Map<String, String> headers, String body,
+                                           Class<T> responseType) {
+    return putAsync(endpoint, headers, body, responseType, requestTimeout);
+  }
+
+  /**
+   * Sends a DELETE request to the specified endpoint with headers without blocking.
+   * Uses the configured request timeout.
+   *
+   * @param endpoint     the API endpoint
+   * @param headers      the headers to include in the request
+   * @param responseType the class of the response type
+   * @param <T>          the type of the response
+   * @return a future of the parsed response of type T
+   */
+  public <T> CompletableFuture<T> deleteAsync(String endpoint, Map<String, String> headers, Class<T> responseType) {
+    return deleteAsync(endpoint, headers, responseType, requestTimeout);
   }
 }
@@ -0,0 +1,96 @@
+package ch.bbw.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * A circuit breaker counting consecutive failures.
+ * Once the threshold is reached the circuit opens and calls are rejected without being attempted. After the open
+ * duration a single trial call is let through (half-open): its success closes the circuit, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  /**
+   * The state of a circuit breaker.
+   */
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openNanos;
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+
+  /**
+   * Constructor for CircuitBreaker.
+   *
+   * @param name             the name of the protected resource, used for log messages
+   * @param failureThreshold the number of consecutive failures that opens the circuit
+   * @param openDuration     the time the circuit stays open before a trial call is let through
+   */
+  public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+  }
+
+  /**
+   * Checks whether a call may be attempted.
+   *
+   * @return true if the circuit is closed, or if the call is the trial call of a half-open circuit
+   */
+  public synchronized boolean tryAcquire() {
+    return switch (state) {
+      case CLOSED -> true;
+      case HALF_OPEN -> false;
+      case OPEN -> {
+        if (System.nanoTime() - openedAt < openNanos) {
+          yield false;
+        }
+        state = State.HALF_OPEN;
+        yield true;
+      }
+    };
+  }
+
+  /**
+   * Records a successful call, closing the circuit.
+   */
+  public synchronized void onSuccess() {
+    if (state != State.CLOSED) {
+      LOGGER.info("Circuit of {} closed", name);
+    }
+    state = State.CLOSED;
+    failures = 0;
+  }
+
+  /**
+   * Records a failed call, opening the circuit if the threshold is reached or the trial call failed.
+   */
+  public synchronized void onFailure() {
+    failures++;
+    if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+      LOGGER.warn("Circuit of {} opened after {} consecutive failures", name, failures);
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+    }
+  }
+
+  /**
+   * Returns the current state.
+   *
+   * @return the state
+   */
+  public synchronized State getState() {
+    return state;
+  }
+}
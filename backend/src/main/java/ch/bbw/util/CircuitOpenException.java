@@ -0,0 +1,18 @@
+package ch.bbw.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker of the API is open.
+ */
+public class CircuitOpenException extends IOException {
+
+  /**
+   * Constructor for CircuitOpenException.
+   *
+   * @param message the detail message
+   */
+  public CircuitOpenException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,56 @@
+package ch.bbw.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream counting the bytes read through it.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+  private long count;
+
+  /**
+   * Constructor for CountingInputStream.
+   *
+   * @param in the stream to count
+   */
+  public CountingInputStream(InputStream in) {
+    super(in);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int value = super.read();
+    if (value >= 0) {
+      count++;
+    }
+    return value;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int read = super.read(buffer, offset, length);
+    if (read > 0) {
+      count += read;
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    count += skipped;
+    return skipped;
+  }
+
+  /**
+   * Returns the number of bytes read or skipped so far.
+   *
+   * @return the byte count
+   */
+  public long getCount() {
+    return count;
+  }
+}
@@ -0,0 +1,93 @@
+package ch.bbw.util;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+
+/**
+ * An SSLContext that counts the TLS connections opened with it, and otherwise behaves like the context it wraps.
+ * The JDK HTTP client creates one SSLEngine for every new connection and none for a reused one, so the count
+ * compared to the number of requests shows how well connections are reused.
+ */
+public class CountingSslContext extends SSLContext {
+
+  /**
+   * Constructor for CountingSslContext.
+   *
+   * @param delegate     the initialized context the engines are created by
+   * @param onConnection called whenever an engine for a new connection is created
+   */
+  public CountingSslContext(SSLContext delegate, Runnable onConnection) {
+    super(new CountingSpi(delegate, onConnection), delegate.getProvider(), delegate.getProtocol());
+  }
+
+  /**
+   * The implementation forwarding to the wrapped context.
+   */
+  private static final class CountingSpi extends SSLContextSpi {
+
+    private final SSLContext delegate;
+    private final Runnable onConnection;
+
+    private CountingSpi(SSLContext delegate, Runnable onConnection) {
+      this.delegate = delegate;
+      this.onConnection = onConnection;
+    }
+
+    @Override
+    protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom random)
+        throws KeyManagementException {
+      delegate.init(keyManagers, trustManagers, random);
+    }
+
+    @Override
+    protected SSLSocketFactory engineGetSocketFactory() {
+      return delegate.getSocketFactory();
+    }
+
+    @Override
+    protected SSLServerSocketFactory engineGetServerSocketFactory() {
+      return delegate.getServerSocketFactory();
+    }
+
+    @Override
+    protected SSLEngine engineCreateSSLEngine() {
+      onConnection.run();
+      return delegate.createSSLEngine();
+    }
+
+    @Override
+    protected SSLEngine engineCreateSSLEngine(String host, int port) {
+      onConnection.run();
+      return delegate.createSSLEngine(host, port);
+    }
+
+    @Override
+    protected SSLSessionContext engineGetServerSessionContext() {
+      return delegate.getServerSessionContext();
+    }
+
+    @Override
+    protected SSLSessionContext engineGetClientSessionContext() {
+      return delegate.getClientSessionContext();
+    }
+
+    @Override
+    protected SSLParameters engineGetDefaultSSLParameters() {
+      return delegate.getDefaultSSLParameters();
+    }
+
+    @Override
+    protected SSLParameters engineGetSupportedSSLParameters() {
+      return delegate.getSupportedSSLParameters();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package ch.bbw.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for turning country names into lookup keys.
+ * Keys are case- and accent-insensitive, and spellings used by the upstream API
+ * (mostly the official UN names) are mapped to the commonly used name.
+ */
+public final class CountryNames {
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  /**
+   * Alternative spellings mapped to the key every dataset is indexed under.
+   */
+  private static final Map<String, String> ALIASES = Map.ofEntries(
+      Map.entry("united states of america", "united states"),
+      Map.entry("usa", "united states"),
+      Map.entry("united kingdom of great britain and northern ireland", "united kingdom"),
+      Map.entry("uk", "united kingdom"),
+      Map.entry("russian federation", "russia"),
+      Map.entry("iran (islamic republic of)", "iran"),
+      Map.entry("venezuela (bolivarian republic of)", "venezuela"),
+      Map.entry("bolivia (plurinational state of)", "bolivia"),
+      Map.entry("micronesia (federated states of)", "micronesia"),
+      Map.entry("republic of korea", "south korea"),
+      Map.entry("korea, republic of", "south korea"),
+      Map.entry("democratic people's republic of korea", "north korea"),
+      Map.entry("viet nam", "vietnam"),
+      Map.entry("syrian arab republic", "syria"),
+      Map.entry("lao people's democratic republic", "laos"),
+      Map.entry("republic of moldova", "moldova"),
+      Map.entry("united republic of tanzania", "tanzania"),
+      Map.entry("czechia", "czech republic"),
+      Map.entry("turkiye", "turkey"),
+      Map.entry("china, hong kong sar", "hong kong"),
+      Map.entry("china, macao sar", "macao"),
+      Map.entry("state of palestine", "palestine"),
+      Map.entry("the former yugoslav republic of macedonia", "north macedonia"),
+      Map.entry("macedonia", "north macedonia"),
+      Map.entry("cote d'ivoire", "ivory coast"),
+      Map.entry("brunei darussalam", "brunei"),
+      Map.entry("cabo verde", "cape verde"),
+      Map.entry("swaziland", "eswatini")
+  );
+
+  private CountryNames() {
+  }
+
+  /**
+   * Normalizes a name by removing accents, lower-casing it and collapsing whitespace.
+   *
+   * @param name the name to normalize
+   * @return the normalized name, or an empty string if the name is null
+   */
+  public static String normalize(String name) {
+    if (name == null) {
+      return "";
+    }
+    if (isPlain(name)) {
+      return name.toLowerCase(Locale.ROOT);
+    }
+    String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+    String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+        .replace('’', '\'')
+        .toLowerCase(Locale.ROOT);
+    return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+  }
+
+  /**
+   * Checks whether a name is ASCII without control characters and separates its words by single spaces, so that
+   * normalizing it only needs to lower-case it. Almost every country name passes, which saves the decomposition
+   * and the two regular expressions on each lookup.
+   *
+   * @param name the name to check
+   * @return true if lower-casing the name normalizes it
+   */
+  private static boolean isPlain(String name) {
+    char previous = ' ';
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c < ' ' || c >= 0x80 || (c == ' ' && previous == ' ')) {
+        return false;
+      }
+      previous = c;
+    }
+    return previous != ' ';
+  }
+
+  /**
+   * Returns the lookup key for a country name, resolving known alternative spellings.
+   *
+   * @param country the name of the country
+   * @return the lookup key of the country
+   */
+  public static String key(String country) {
+    String normalized = normalize(country);
+    return ALIASES.getOrDefault(normalized, normalized);
+  }
+}
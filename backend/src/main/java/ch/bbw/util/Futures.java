@@ -0,0 +1,42 @@
+package ch.bbw.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Utility class for bridging futures back to blocking callers.
+ */
+public final class Futures {
+
+  private Futures() {
+  }
+
+  /**
+   * Waits for a future and rethrows its failure the way a blocking call would have thrown it.
+   *
+   * @param future the future to wait for
+   * @param <T>    the type of the result
+   * @return the result of the future
+   * @throws IOException          if the future failed with an I/O error
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException unchecked) {
+        throw unchecked.getCause();
+      } else if (cause instanceof IOException io) {
+        throw io;
+      } else if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      } else if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package ch.bbw.util;
+
+import java.util.Locale;
+
+/**
+ * Parses the request header values the page and chart endpoints negotiate with, following RFC 9110.
+ */
+public final class HttpHeaderValues {
+
+  private HttpHeaderValues() {
+  }
+
+  /**
+   * Checks whether an If-None-Match header matches the current ETag of a resource, using the weak comparison
+   * RFC 9110 requires for If-None-Match. The header may be a list of ETags or "*", which matches any resource.
+   *
+   * @param ifNoneMatch the If-None-Match header, or null if the request has none
+   * @param eTag        the current ETag of the resource, strong or weak
+   * @return true if the request should be answered with 304
+   */
+  public static boolean noneMatchFails(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    String opaqueTag = opaqueTag(eTag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if (trimmed.equals("*") || opaqueTag(trimmed).equals(opaqueTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether an Accept-Encoding header accepts a content coding, honouring q-values: a coding listed with
+   * q=0 is refused, and "*" applies to every coding that is not listed itself.
+   *
+   * @param acceptEncoding the Accept-Encoding header, or null if the request has none
+   * @param coding         the content coding, e.g. "gzip"
+   * @return true if the coding has a q-value above 0
+   */
+  public static boolean acceptsEncoding(String acceptEncoding, String coding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    double listed = -1;
+    double wildcard = -1;
+    for (String element : acceptEncoding.split(",")) {
+      String[] parts = element.split(";");
+      String name = parts[0].trim().toLowerCase(Locale.ROOT);
+      double quality = quality(parts);
+      if (name.equals(coding) || name.equals("x-" + coding)) {
+        listed = Math.max(listed, quality);
+      } else if (name.equals("*")) {
+        wildcard = quality;
+      }
+    }
+    return (listed >= 0 ? listed : wildcard) > 0;
+  }
+
+  /**
+   * Returns the q-value of an Accept-Encoding element.
+   *
+   * @param parts the coding of the element followed by its parameters
+   * @return the q-value, 1 if it has none, or 0 if it is malformed
+   */
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+        try {
+          double quality = Double.parseDouble(parameter.substring(2));
+          return quality >= 0 && quality <= 1 ? quality : 0;
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Strips the weakness indicator of an ETag, leaving the quoted opaque tag.
+   *
+   * @param eTag the ETag
+   * @return the opaque tag
+   */
+  private static String opaqueTag(String eTag) {
+    return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+  }
+}
@@ -0,0 +1,104 @@
+package ch.bbw.util;
+
+/**
+ * Utility class for sorting int arrays with a custom order, without boxing.
+ */
+public final class IntSorts {
+
+  /**
+   * Compares two ints, typically indexes into other arrays.
+   */
+  @FunctionalInterface
+  public interface IntComparator {
+
+    /**
+     * Compares two ints.
+     *
+     * @param a the first int
+     * @param b the second int
+     * @return a negative number, zero, or a positive number as a is less than, equal to, or greater than b
+     */
+    int compare(int a, int b);
+  }
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private IntSorts() {
+  }
+
+  /**
+   * Returns the identity permutation 0, 1, ..., size - 1.
+   *
+   * @param size the size of the permutation
+   * @return the identity permutation
+   */
+  public static int[] identity(int size) {
+    int[] permutation = new int[size];
+    for (int i = 0; i < size; i++) {
+      permutation[i] = i;
+    }
+    return permutation;
+  }
+
+  /**
+   * Sorts the array in place. The sort is stable.
+   *
+   * @param values     the array to sort
+   * @param comparator the order to sort by
+   */
+  public static void sort(int[] values, IntComparator comparator) {
+    int[] buffer = values.clone();
+    mergeSort(buffer, values, 0, values.length, comparator);
+  }
+
+  /**
+   * Sorts source[from, to) into target[from, to), using source as scratch space.
+   * Both arrays must hold the same values on entry.
+   *
+   * @param source     the scratch array
+   * @param target     the array receiving the sorted range
+   * @param from       the first index of the range, inclusive
+   * @param to         the last index of the range, exclusive
+   * @param comparator the order to sort by
+   */
+  private static void mergeSort(int[] source, int[] target, int from, int to, IntComparator comparator) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      insertionSort(target, from, to, comparator);
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+    mergeSort(target, source, from, middle, comparator);
+    mergeSort(target, source, middle, to, comparator);
+
+    int left = from;
+    int right = middle;
+    for (int i = from; i < to; i++) {
+      if (right >= to || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+        target[i] = source[left++];
+      } else {
+        target[i] = source[right++];
+      }
+    }
+  }
+
+  /**
+   * Sorts a small range in place with insertion sort.
+   *
+   * @param values     the array holding the range
+   * @param from       the first index of the range, inclusive
+   * @param to         the last index of the range, exclusive
+   * @param comparator the order to sort by
+   */
+  private static void insertionSort(int[] values, int from, int to, IntComparator comparator) {
+    for (int i = from + 1; i < to; i++) {
+      int value = values[i];
+      int j = i - 1;
+      while (j >= from && comparator.compare(values[j], value) > 0) {
+        values[j + 1] = values[j];
+        j--;
+      }
+      values[j + 1] = value;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package ch.bbw.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Streams the elements of a JSON array field one by one, without materializing the whole document.
+ * Each element can be filtered on one of its string fields before it is bound, so rejected
+ * elements are skipped token by token and never turned into objects.
+ */
+public class JsonArrayStreamer {
+
+  /**
+   * Decides whether an array element is bound, based on the value of one of its string fields.
+   *
+   * @param field     the name of the field the decision is based on
+   * @param predicate the predicate the field value has to match
+   */
+  public record ElementFilter(String field, Predicate<String> predicate) {
+
+    /**
+     * Returns a filter accepting every element.
+     *
+     * @return the filter
+     */
+    public static ElementFilter acceptAll() {
+      return new ElementFilter(null, value -> true);
+    }
+  }
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Constructor for JsonArrayStreamer.
+   *
+   * @param objectMapper the ObjectMapper used to create parsers and bind the accepted elements
+   */
+  public JsonArrayStreamer(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Reads the array stored under the given top-level field and passes every accepted element to the sink.
+   * Elements that are not objects, such as nulls, are skipped.
+   *
+   * @param inputStream the JSON document
+   * @param arrayField  the name of the top-level field holding the array
+   * @param elementType the class the accepted elements are bound to
+   * @param filter      the filter deciding which elements are bound
+   * @param sink        the consumer receiving the bound elements
+   * @param <T>         the type of the elements
+   * @return the number of elements passed to the sink
+   * @throws IOException if an I/O error occurs or the document is malformed
+   */
+  public <T> int stream(InputStream inputStream, String arrayField, Class<T> elementType,
+                        ElementFilter filter, Consumer<? super T> sink) throws IOException {
+    int accepted = 0;
+
+    try (JsonParser parser = objectMapper.createParser(inputStream)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Expected a JSON object");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (!arrayField.equals(field) || value != JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          continue;
+        }
+
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+          if (token == null) {
+            throw new IOException("Unexpected end of the array " + arrayField);
+          }
+          if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            continue;
+          }
+
+          T element = readElement(parser, elementType, filter);
+          if (element != null) {
+            sink.accept(element);
+            accepted++;
+          }
+        }
+      }
+    }
+
+    return accepted;
+  }
+
+  /**
+   * Reads one array element. Fields are buffered until the filter field has been seen;
+   * if it does not match, the rest of the element is skipped without buffering.
+   *
+   * @param parser      the parser positioned on the START_OBJECT of the element
+   * @param elementType the class the element is bound to
+   * @param filter      the filter deciding whether the element is bound
+   * @param <T>         the type of the element
+   * @return the bound element, or null if it was rejected
+   * @throws IOException if an I/O error occurs or the document is malformed
+   */
+  private <T> T readElement(JsonParser parser, Class<T> elementType, ElementFilter filter) throws IOException {
+    boolean decided = filter.field() == null;
+    TokenBuffer buffer = new TokenBuffer(parser);
+    buffer.writeStartObject();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+
+      if (!decided && field.equals(filter.field())) {
+        if (!filter.predicate().test(parser.getValueAsString())) {
+          skipRemainingFields(parser);
+          return null;
+        }
+        decided = true;
+      }
+
+      buffer.writeFieldName(field);
+      buffer.copyCurrentStructure(parser);
+    }
+
+    if (!decided && !filter.predicate().test(null)) {
+      return null;
+    }
+
+    buffer.writeEndObject();
+    try (JsonParser bufferedParser = buffer.asParser(parser.getCodec())) {
+      return objectMapper.readValue(bufferedParser, elementType);
+    }
+  }
+
+  /**
+   * Skips the remaining fields of the current object, leaving the parser on its END_OBJECT.
+   *
+   * @param parser the parser positioned on a field value
+   * @throws IOException if an I/O error occurs or the document is malformed
+   */
+  private void skipRemainingFields(JsonParser parser) throws IOException {
+    parser.skipChildren();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      parser.nextToken();
+      parser.skipChildren();
+    }
+  }
+}
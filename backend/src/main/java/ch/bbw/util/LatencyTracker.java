@@ -0,0 +1,75 @@
+package ch.bbw.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the most recent latencies of every endpoint in fixed-size ring buffers to estimate their percentiles.
+ */
+public class LatencyTracker {
+
+  private static final int WINDOW = 128;
+
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  /**
+   * Records a latency.
+   *
+   * @param endpoint the endpoint
+   * @param nanos    the latency in nanoseconds
+   */
+  public void record(String endpoint, long nanos) {
+    windows.computeIfAbsent(endpoint, ignored -> new Window()).record(nanos);
+  }
+
+  /**
+   * Estimates a latency percentile of an endpoint from its recent latencies.
+   *
+   * @param endpoint   the endpoint
+   * @param percentile the percentile between 0 and 1
+   * @param minSamples the number of recorded latencies required for an estimate
+   * @return the percentile in nanoseconds, or -1 if fewer samples were recorded
+   */
+  public long percentile(String endpoint, double percentile, int minSamples) {
+    Window window = windows.get(endpoint);
+    return window == null ? -1 : window.percentile(percentile, minSamples);
+  }
+
+  /**
+   * The ring buffer of one endpoint.
+   */
+  private static final class Window {
+
+    private final long[] samples = new long[WINDOW];
+    private long count;
+
+    /**
+     * Records a latency, overwriting the oldest one once the buffer is full.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    private synchronized void record(long nanos) {
+      samples[(int) (count++ % WINDOW)] = nanos;
+    }
+
+    /**
+     * Estimates a percentile by the nearest-rank method.
+     *
+     * @param percentile the percentile between 0 and 1
+     * @param minSamples the number of recorded latencies required for an estimate
+     * @return the percentile in nanoseconds, or -1 if fewer samples were recorded
+     */
+    private long percentile(double percentile, int minSamples) {
+      long[] sorted;
+      synchronized (this) {
+        if (count < minSamples) {
+          return -1;
+        }
+        sorted = Arrays.copyOf(samples, (int) Math.min(count, WINDOW));
+      }
+      Arrays.sort(sorted);
+      return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+  }
+}
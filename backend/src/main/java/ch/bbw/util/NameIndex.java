@@ -0,0 +1,221 @@
+package ch.bbw.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * An immutable search index over names, for autocompletion.
+ * Names are folded with {@link CountryNames#normalize(String)} (case, accents, whitespace) and kept in a sorted array,
+ * so prefix matches are a binary search followed by a scan of the matching range.
+ * If there are not enough prefix matches, the names are also matched with a bounded edit distance
+ * (Damerau-Levenshtein with adjacent transpositions) between the query and a prefix of the name, to tolerate typos.
+ */
+public final class NameIndex {
+
+  /**
+   * Indexes up to this size are fuzzily matched in full; larger ones only where the first character matches.
+   */
+  private static final int FULL_SCAN_LIMIT = 1024;
+
+  /**
+   * A matching name.
+   *
+   * @param id       the id the name was indexed with
+   * @param distance the edit distance between the query and the closest prefix of the name, 0 for a prefix match
+   */
+  public record Match(int id, int distance) {
+  }
+
+  private final String[] keys;
+  private final int[] ids;
+
+  /**
+   * Constructor for NameIndex.
+   *
+   * @param keys the folded names in ascending order
+   * @param ids  the id of every name
+   */
+  private NameIndex(String[] keys, int[] ids) {
+    this.keys = keys;
+    this.ids = ids;
+  }
+
+  /**
+   * Builds an index over names identified by the ids 0 to size - 1.
+   *
+   * @param size  the number of names
+   * @param names the name of every id; null names are indexed as empty and never match
+   * @return the index
+   */
+  public static NameIndex of(int size, IntFunction<String> names) {
+    String[] folded = new String[size];
+    for (int id = 0; id < size; id++) {
+      folded[id] = CountryNames.normalize(names.apply(id));
+    }
+
+    int[] ids = IntSorts.identity(size);
+    IntSorts.sort(ids, (a, b) -> folded[a].compareTo(folded[b]));
+    String[] keys = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = folded[ids[i]];
+    }
+    return new NameIndex(keys, ids);
+  }
+
+  /**
+   * Returns the number of indexed names.
+   *
+   * @return the number of names
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Searches for names starting with the query, followed by names within a small edit distance if there are fewer
+   * than limit of those. Prefix matches are ordered alphabetically, the others by distance, then alphabetically.
+   *
+   * @param query the text typed so far
+   * @param limit the maximum number of matches
+   * @return the matches, best first
+   */
+  public List<Match> search(String query, int limit) {
+    String folded = CountryNames.normalize(query);
+    List<Match> matches = new ArrayList<>(Math.min(limit, 16));
+    if (folded.isEmpty() || limit <= 0) {
+      return matches;
+    }
+
+    for (int i = lowerBound(folded); i < keys.length && matches.size() < limit && keys[i].startsWith(folded); i++) {
+      matches.add(new Match(ids[i], 0));
+    }
+
+    int maxDistance = maxDistance(folded.length());
+    if (matches.size() < limit && maxDistance > 0) {
+      matches.addAll(fuzzy(folded, maxDistance, limit - matches.size()));
+    }
+    return matches;
+  }
+
+  /**
+   * Returns the number of typos tolerated in a query, growing with its length so short queries stay selective.
+   *
+   * @param length the length of the folded query
+   * @return the maximum edit distance
+   */
+  private static int maxDistance(int length) {
+    if (length < 4) {
+      return 0;
+    }
+    return length < 8 ? 1 : 2;
+  }
+
+  /**
+   * Finds the names within the given edit distance of the query that do not start with it.
+   *
+   * @param query       the folded query
+   * @param maxDistance the maximum edit distance
+   * @param limit       the maximum number of matches
+   * @return the matches, ordered by distance, then alphabetically
+   */
+  private List<Match> fuzzy(String query, int maxDistance, int limit) {
+    int from = 0;
+    int to = keys.length;
+    if (keys.length > FULL_SCAN_LIMIT) {
+      char first = query.charAt(0);
+      from = lowerBound(String.valueOf(first));
+      to = first == Character.MAX_VALUE ? keys.length : lowerBound(String.valueOf((char) (first + 1)));
+    }
+
+    int width = query.length() + maxDistance + 1;
+    int[][] rows = new int[3][width];
+    List<int[]> found = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      int distance = prefixDistance(query, keys[i], maxDistance, rows);
+      if (distance > 0 && distance <= maxDistance) {
+        found.add(new int[]{distance, i});
+      }
+    }
+
+    found.sort(Comparator.<int[]>comparingInt(entry -> entry[0]).thenComparingInt(entry -> entry[1]));
+    List<Match> matches = new ArrayList<>(Math.min(limit, found.size()));
+    for (int j = 0; j < found.size() && j < limit; j++) {
+      matches.add(new Match(ids[found.get(j)[1]], found.get(j)[0]));
+    }
+    return matches;
+  }
+
+  /**
+   * Computes the smallest edit distance between the query and any prefix of the key, giving up as soon as it
+   * exceeds the maximum. Insertions, deletions, substitutions and transpositions of adjacent characters cost 1.
+   *
+   * @param query       the folded query
+   * @param key         the folded name
+   * @param maxDistance the maximum distance of interest
+   * @param rows        three scratch rows of at least query.length() + maxDistance + 1 entries
+   * @return the distance, or maxDistance + 1 if it is larger
+   */
+  private static int prefixDistance(String query, String key, int maxDistance, int[][] rows) {
+    int m = query.length();
+    int n = Math.min(key.length(), m + maxDistance);
+    if (n < m - maxDistance) {
+      return maxDistance + 1;
+    }
+
+    int[] beforePrevious = rows[0];
+    int[] previous = rows[1];
+    int[] current = rows[2];
+    for (int j = 0; j <= n; j++) {
+      previous[j] = j;
+    }
+
+    for (int i = 1; i <= m; i++) {
+      char q = query.charAt(i - 1);
+      current[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= n; j++) {
+        char k = key.charAt(j - 1);
+        int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + (q == k ? 0 : 1));
+        if (i > 1 && j > 1 && q == key.charAt(j - 2) && query.charAt(i - 2) == k) {
+          distance = Math.min(distance, beforePrevious[j - 2] + 1);
+        }
+        current[j] = distance;
+        rowMin = Math.min(rowMin, distance);
+      }
+      if (rowMin > maxDistance) {
+        return maxDistance + 1;
+      }
+
+      int[] recycled = beforePrevious;
+      beforePrevious = previous;
+      previous = current;
+      current = recycled;
+    }
+
+    int best = maxDistance + 1;
+    for (int j = 0; j <= n; j++) {
+      best = Math.min(best, previous[j]);
+    }
+    return best;
+  }
+
+  /**
+   * Finds the first key not smaller than the given string.
+   *
+   * @param value the string to search for
+   * @return the index of the first key greater than or equal to the value
+   */
+  private int lowerBound(String value) {
+    int index = Arrays.binarySearch(keys, value);
+    if (index < 0) {
+      return -index - 1;
+    }
+    while (index > 0 && keys[index - 1].equals(value)) {
+      index--;
+    }
+    return index;
+  }
+}
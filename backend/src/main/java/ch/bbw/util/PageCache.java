@@ -0,0 +1,129 @@
+package ch.bbw.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A bounded cache of rendered pages, kept gzip-compressed together with an ETag of their content.
+ * Pages are weighed by their compressed size, and evicted by Caffeine's W-TinyLFU policy once the total size
+ * exceeds the maximum, so frequently requested pages stay cached while one-off pages make room first.
+ *
+ * @param <K> the type of the page keys
+ */
+public class PageCache<K> {
+
+  /**
+   * A rendered page.
+   *
+   * @param gzipped the gzip-compressed page
+   * @param eTag    the weak ETag of the page content, the same for the compressed and uncompressed page
+   */
+  public record Page(byte[] gzipped, String eTag) {
+
+    /**
+     * Returns the uncompressed page, for clients that do not accept gzip.
+     *
+     * @return the page
+     */
+    public byte[] content() {
+      try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+        return input.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e); // Decompressing from memory does not fail
+      }
+    }
+  }
+
+  private final Cache<K, Page> cache;
+
+  /**
+   * Constructor for PageCache.
+   *
+   * @param name          the name of the cache, used for its metrics
+   * @param maxBytes      the maximum total size of the compressed pages
+   * @param meterRegistry the registry the hit, miss and eviction metrics are recorded in
+   */
+  public PageCache(String name, long maxBytes, MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((K key, Page page) -> page.gzipped().length)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+  }
+
+  /**
+   * Returns a cached page.
+   *
+   * @param key the key of the page
+   * @return the page, or null if it is not cached
+   */
+  public Page get(K key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Compresses a rendered page and caches it.
+   *
+   * @param key     the key of the page
+   * @param content the rendered page
+   * @return the cached page
+   */
+  public Page put(K key, byte[] content) {
+    Page page = of(content);
+    cache.put(key, page);
+    return page;
+  }
+
+  /**
+   * Removes the pages whose keys match a condition, e.g. because they were rendered from an outdated dataset.
+   *
+   * @param stale the condition selecting the pages to remove
+   */
+  public void invalidateIf(Predicate<K> stale) {
+    cache.asMap().keySet().removeIf(stale);
+  }
+
+  /**
+   * Compresses a rendered page and computes its ETag, without caching it.
+   *
+   * @param content the rendered page
+   * @return the page
+   */
+  public static Page of(byte[] content) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+    try (GZIPOutputStream output = new GZIPOutputStream(bytes)) {
+      output.write(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // Compressing to memory does not fail
+    }
+    return new Page(bytes.toByteArray(), "W/\"" + hash(content) + "\"");
+  }
+
+  /**
+   * Computes a content hash of a page.
+   *
+   * @param content the rendered page
+   * @return the first 128 bits of the SHA-256 hash as hex string
+   */
+  private static String hash(byte[] content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content), 0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package ch.bbw.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A process-wide, periodically refreshed snapshot of a dataset.
+ * Only the very first load makes its callers wait. Afterwards readers always get the current version,
+ * even once it has expired, while a background refresh swaps in the next version atomically
+ * (stale-while-revalidate). If a refresh fails, the current version keeps being served, but is reported as stale
+ * until a refresh succeeds again.
+ *
+ * @param <T> the type of the dataset
+ */
+public class RefreshingSnapshot<T> implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RefreshingSnapshot.class);
+
+  /**
+   * Loads a new version of the dataset without blocking the caller.
+   *
+   * @param <T> the type of the dataset
+   */
+  @FunctionalInterface
+  public interface Loader<T> {
+
+    /**
+     * Starts loading the dataset.
+     *
+     * @param previous the currently served dataset, or null on the first load
+     * @return a future of the newly loaded dataset
+     */
+    CompletableFuture<T> load(T previous);
+  }
+
+  /**
+   * An immutable version of the dataset.
+   *
+   * @param value    the dataset
+   * @param version  the monotonically increasing version number
+   * @param loadedAt the time the dataset was loaded
+   * @param <T>      the type of the dataset
+   */
+  public record Snapshot<T>(T value, long version, Instant loadedAt) {
+  }
+
+  private final String name;
+  private final Loader<T> loader;
+  private final Duration ttl;
+  private final ScheduledExecutorService refresher;
+  private final AtomicReference<Snapshot<T>> current = new AtomicReference<>();
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  private final AtomicReference<CompletableFuture<Snapshot<T>>> initialLoad = new AtomicReference<>();
+  private final AtomicLong versions = new AtomicLong();
+  private volatile boolean refreshFailed;
+
+  /**
+   * Constructs a RefreshingSnapshot and schedules its periodic background refresh.
+   *
+   * @param name   the name of the dataset, used for the refresher thread and log messages
+   * @param loader the loader fetching new versions of the dataset
+   * @param ttl    the time after which a loaded version is considered expired
+   */
+  public RefreshingSnapshot(String name, Loader<T> loader, Duration ttl) {
+    this.name = name;
+    this.loader = loader;
+    this.ttl = ttl;
+    this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, name + "-refresher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.refresher.scheduleWithFixedDelay(this::refreshIfLoaded, ttl.toMillis(), ttl.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the current dataset, loading it first if no version has been loaded yet.
+   *
+   * @return the current dataset
+   * @throws IOException          if an I/O error occurs during the first load
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public T get() throws IOException, InterruptedException {
+    return getSnapshot().value();
+  }
+
+  /**
+   * Returns the current snapshot, loading it first if no version has been loaded yet.
+   * An expired snapshot is still returned, but triggers a background refresh.
+   *
+   * @return the current snapshot
+   * @throws IOException          if an I/O error occurs during the first load
+   * @throws InterruptedException if the operation is interrupted
+   */
+  public Snapshot<T> getSnapshot() throws IOException, InterruptedException {
+    return Futures.await(getSnapshotAsync());
+  }
+
+  /**
+   * Returns a future of the current dataset without blocking.
+   *
+   * @return a future of the current dataset, already completed once the first load has finished
+   */
+  public CompletableFuture<T> getAsync() {
+    return getSnapshotAsync().thenApply(Snapshot::value);
+  }
+
+  /**
+   * Returns a future of the current snapshot without blocking.
+   * An expired snapshot is still returned, but triggers a background refresh.
+   *
+   * @return a future of the current snapshot, already completed once the first load has finished
+   */
+  public CompletableFuture<Snapshot<T>> getSnapshotAsync() {
+    Snapshot<T> snapshot = current.get();
+    if (snapshot == null) {
+      return loadInitial();
+    }
+    if (isExpired(snapshot)) {
+      refreshAsync();
+    }
+    return CompletableFuture.completedFuture(snapshot);
+  }
+
+  /**
+   * Serves a previously persisted version of the dataset until the first load has finished, and triggers that load
+   * in the background. Has no effect if a version has already been loaded.
+   *
+   * @param value    the persisted dataset
+   * @param loadedAt the time the persisted dataset was originally loaded
+   */
+  public void seed(T value, Instant loadedAt) {
+    Snapshot<T> snapshot = new Snapshot<>(value, versions.incrementAndGet(), loadedAt);
+    if (current.compareAndSet(null, snapshot)) {
+      LOGGER.info("Serving {} from the snapshot of {} while refreshing it", name, loadedAt);
+      refreshAsync();
+    }
+  }
+
+  /**
+   * Returns the load time of the served version if the last refresh of it failed.
+   *
+   * @return the time the served version was loaded if it is stale, or null if it is current or none is loaded
+   */
+  public Instant getStaleSince() {
+    Snapshot<T> snapshot = current.get();
+    return refreshFailed && snapshot != null ? snapshot.loadedAt() : null;
+  }
+
+  /**
+   * Returns the version number of the served dataset. Refreshes that load unchanged data keep the version.
+   *
+   * @return the version number, or -1 if no version is loaded yet
+   */
+  public long getVersion() {
+    Snapshot<T> snapshot = current.get();
+    return snapshot == null ? -1 : snapshot.version();
+  }
+
+  /**
+   * Triggers a background refresh unless one is already running.
+   */
+  public void refreshAsync() {
+    if (refreshing.compareAndSet(false, true)) {
+      refresher.execute(this::refresh);
+    }
+  }
+
+  /**
+   * Stops the background refresher.
+   */
+  @Override
+  public void close() {
+    refresher.shutdownNow();
+  }
+
+  /**
+   * Starts the first load. Concurrent callers share the same load; a failed load is retried by the next caller.
+   *
+   * @return a future of the loaded snapshot
+   */
+  private CompletableFuture<Snapshot<T>> loadInitial() {
+    CompletableFuture<Snapshot<T>> load = new CompletableFuture<>();
+    CompletableFuture<Snapshot<T>> running = initialLoad.compareAndExchange(null, load);
+    if (running != null) {
+      return running;
+    }
+
+    startLoad(null).whenComplete((snapshot, error) -> {
+      if (error != null) {
+        initialLoad.set(null);
+        load.completeExceptionally(error);
+      } else {
+        load.complete(snapshot);
+      }
+    });
+    return load;
+  }
+
+  /**
+   * Refreshes the dataset in the background, keeping the current version on failure.
+   */
+  private void refresh() {
+    Snapshot<T> previous = current.get();
+    startLoad(previous == null ? null : previous.value()).whenComplete((snapshot, error) -> {
+      if (error != null) {
+        refreshFailed = true;
+        LOGGER.warn("Refreshing {} failed, keeping the current version", name, error);
+      }
+      refreshing.set(false);
+    });
+  }
+
+  /**
+   * Starts the loader and publishes its result.
+   *
+   * @param previous the currently served dataset, or null on the first load
+   * @return a future of the published snapshot
+   */
+  private CompletableFuture<Snapshot<T>> startLoad(T previous) {
+    try {
+      return loader.load(previous).thenApply(this::publish);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Refreshes the dataset if a first version has been loaded. Used by the periodic schedule.
+   */
+  private void refreshIfLoaded() {
+    if (current.get() != null && refreshing.compareAndSet(false, true)) {
+      refresh();
+    }
+  }
+
+  /**
+   * Atomically replaces the current snapshot with a new version of the dataset.
+   * If the loader returned the currently served dataset unchanged, only its load time is renewed.
+   *
+   * @param value the new dataset
+   * @return the published snapshot
+   */
+  private Snapshot<T> publish(T value) {
+    Snapshot<T> previous = current.get();
+    long version = previous != null && previous.value() == value ? previous.version() : versions.incrementAndGet();
+    Snapshot<T> snapshot = new Snapshot<>(value, version, Instant.now());
+    current.set(snapshot);
+    refreshFailed = false;
+    return snapshot;
+  }
+
+  /**
+   * Checks whether the given snapshot has outlived the TTL.
+   *
+   * @param snapshot the snapshot to check
+   * @return true if the snapshot is expired
+   */
+  private boolean isExpired(Snapshot<T> snapshot) {
+    return snapshot.loadedAt().plus(ttl).isBefore(Instant.now());
+  }
+}
@@ -0,0 +1,204 @@
+package ch.bbw.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+/**
+ * Utility class for persisting datasets to versioned, checksummed binary files that are read back
+ * through a memory mapping.
+ *
+ * <p>Layout (big-endian): magic, format version, dataset type, creation time in epoch milliseconds,
+ * payload length, CRC32 of the payload, followed by the payload itself.</p>
+ */
+public final class SnapshotFile {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotFile.class);
+
+  private static final int MAGIC = 0x43535350; // "CSSP"
+  private static final int FORMAT_VERSION = 2; // 2: population series ordered by descending year
+  private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 8;
+
+  /**
+   * Writes a dataset payload.
+   */
+  @FunctionalInterface
+  public interface PayloadWriter {
+
+    /**
+     * Writes the payload.
+     *
+     * @param output the output to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DataOutputStream output) throws IOException;
+  }
+
+  /**
+   * Reads a dataset payload.
+   *
+   * @param <T> the type of the dataset
+   */
+  @FunctionalInterface
+  public interface PayloadReader<T> {
+
+    /**
+     * Reads the payload.
+     *
+     * @param payload the payload, positioned at its start
+     * @return the dataset
+     */
+    T read(ByteBuffer payload);
+  }
+
+  /**
+   * A dataset read from a snapshot file.
+   *
+   * @param value     the dataset
+   * @param createdAt the time the snapshot file was written
+   * @param <T>       the type of the dataset
+   */
+  public record Contents<T>(T value, Instant createdAt) {
+  }
+
+  private SnapshotFile() {
+  }
+
+  /**
+   * Writes a dataset to a snapshot file. The file is written next to the target and moved into place atomically,
+   * so readers never see a partially written file.
+   *
+   * @param file   the snapshot file
+   * @param type   the dataset type, checked when reading
+   * @param writer the writer of the payload
+   * @throws IOException if an I/O error occurs
+   */
+  public static void write(Path file, int type, PayloadWriter writer) throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(payload))) {
+      writer.write(output);
+    }
+    byte[] bytes = payload.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+        .putInt(MAGIC)
+        .putInt(FORMAT_VERSION)
+        .putInt(type)
+        .putLong(Instant.now().toEpochMilli())
+        .putLong(bytes.length)
+        .putLong(crc.getValue())
+        .flip();
+
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer body = ByteBuffer.wrap(bytes);
+      while (header.hasRemaining() || body.hasRemaining()) {
+        channel.write(new ByteBuffer[]{header, body});
+      }
+      channel.force(true);
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads a dataset from a memory-mapped snapshot file.
+   *
+   * @param file   the snapshot file
+   * @param type   the expected dataset type
+   * @param reader the reader of the payload
+   * @param <T>    the type of the dataset
+   * @return the dataset, or null if the file does not exist or is not a valid snapshot of this format
+   */
+  public static <T> Contents<T> read(Path file, int type, PayloadReader<T> reader) {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (mapped.remaining() < HEADER_SIZE || mapped.getInt() != MAGIC) {
+        LOGGER.warn("Ignoring snapshot {}: not a snapshot file", file);
+        return null;
+      }
+      int formatVersion = mapped.getInt();
+      int fileType = mapped.getInt();
+      if (formatVersion != FORMAT_VERSION || fileType != type) {
+        LOGGER.warn("Ignoring snapshot {}: format {} type {}, expected format {} type {}",
+            file, formatVersion, fileType, FORMAT_VERSION, type);
+        return null;
+      }
+      Instant createdAt = Instant.ofEpochMilli(mapped.getLong());
+      long length = mapped.getLong();
+      long checksum = mapped.getLong();
+      if (length != mapped.remaining()) {
+        LOGGER.warn("Ignoring snapshot {}: truncated", file);
+        return null;
+      }
+
+      ByteBuffer payload = mapped.slice();
+      CRC32 crc = new CRC32();
+      crc.update(payload.duplicate());
+      if (crc.getValue() != checksum) {
+        LOGGER.warn("Ignoring snapshot {}: checksum mismatch", file);
+        return null;
+      }
+
+      return new Contents<>(reader.read(payload), createdAt);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Ignoring snapshot {}: unreadable", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes a nullable string as length-prefixed UTF-8.
+   *
+   * @param output the output to write to
+   * @param value  the string, or null
+   * @throws IOException if an I/O error occurs
+   */
+  public static void writeString(DataOutput output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a nullable string written by {@link #writeString(DataOutput, String)}.
+   *
+   * @param input the buffer to read from
+   * @return the string, or null
+   */
+  public static String readString(ByteBuffer input) {
+    int length = input.getInt();
+    if (length < 0) {
+      return null;
+    }
+    String value = StandardCharsets.UTF_8.decode(input.slice(input.position(), length)).toString();
+    input.position(input.position() + length);
+    return value;
+  }
+}
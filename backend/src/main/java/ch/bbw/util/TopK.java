@@ -0,0 +1,158 @@
+package ch.bbw.util;
+
+/**
+ * Selects the k best of a stream of (id, key) pairs in O(n log k), using a bounded binary heap over primitive arrays.
+ * The heap root is the worst kept pair, so a new pair only has to beat the root to get in.
+ * Ties between equal keys are won by the smaller id.
+ */
+public final class TopK {
+
+  private final int[] ids;
+  private final long[] keys;
+  private final boolean largest;
+  private int size;
+
+  /**
+   * Constructor for TopK.
+   *
+   * @param k       the number of pairs to keep
+   * @param largest whether to keep the pairs with the largest keys rather than the smallest
+   */
+  public TopK(int k, boolean largest) {
+    this.ids = new int[k];
+    this.keys = new long[k];
+    this.largest = largest;
+  }
+
+  /**
+   * Offers a pair, keeping it if it is among the k best so far.
+   *
+   * @param id  the id, typically an index into other arrays
+   * @param key the key the pairs are ranked by
+   */
+  public void offer(int id, long key) {
+    if (size < ids.length) {
+      ids[size] = id;
+      keys[size] = key;
+      siftUp(size++);
+    } else if (size > 0 && isWorse(ids[0], keys[0], id, key)) {
+      ids[0] = id;
+      keys[0] = key;
+      siftDown(0, size);
+    }
+  }
+
+  /**
+   * Returns the number of kept pairs.
+   *
+   * @return the number of kept pairs, at most k
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the ids of the kept pairs, best first. The selector is left unchanged.
+   *
+   * @return the ids
+   */
+  public int[] toArray() {
+    int[] heapIds = ids.clone();
+    long[] heapKeys = keys.clone();
+    int[] result = new int[size];
+
+    // Heap sort on the copy: the worst remaining pair is always at the root
+    TopK heap = new TopK(heapIds, heapKeys, largest, size);
+    for (int remaining = size; remaining > 0; remaining--) {
+      result[remaining - 1] = heap.ids[0];
+      heap.swap(0, remaining - 1);
+      heap.siftDown(0, remaining - 1);
+    }
+    return result;
+  }
+
+  /**
+   * Constructor for a heap over existing arrays.
+   *
+   * @param ids     the ids
+   * @param keys    the keys
+   * @param largest whether larger keys are better
+   * @param size    the number of pairs in the heap
+   */
+  private TopK(int[] ids, long[] keys, boolean largest, int size) {
+    this.ids = ids;
+    this.keys = keys;
+    this.largest = largest;
+    this.size = size;
+  }
+
+  /**
+   * Moves a pair up until its parent is worse.
+   *
+   * @param index the heap index of the pair
+   */
+  private void siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!isWorse(ids[index], keys[index], ids[parent], keys[parent])) {
+        return;
+      }
+      swap(index, parent);
+      index = parent;
+    }
+  }
+
+  /**
+   * Moves a pair down until both children are better.
+   *
+   * @param index the heap index of the pair
+   * @param limit the number of pairs in the heap
+   */
+  private void siftDown(int index, int limit) {
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= limit) {
+        return;
+      }
+      if (child + 1 < limit && isWorse(ids[child + 1], keys[child + 1], ids[child], keys[child])) {
+        child++;
+      }
+      if (!isWorse(ids[child], keys[child], ids[index], keys[index])) {
+        return;
+      }
+      swap(index, child);
+      index = child;
+    }
+  }
+
+  /**
+   * Checks whether the first pair ranks below the second.
+   *
+   * @param idA  the id of the first pair
+   * @param keyA the key of the first pair
+   * @param idB  the id of the second pair
+   * @param keyB the key of the second pair
+   * @return true if the first pair is worse
+   */
+  private boolean isWorse(int idA, long keyA, int idB, long keyB) {
+    if (keyA != keyB) {
+      return largest ? keyA < keyB : keyA > keyB;
+    }
+    return idA > idB;
+  }
+
+  /**
+   * Swaps two pairs.
+   *
+   * @param a the heap index of the first pair
+   * @param b the heap index of the second pair
+   */
+  private void swap(int a, int b) {
+    int id = ids[a];
+    ids[a] = ids[b];
+    ids[b] = id;
+    long key = keys[a];
+    keys[a] = keys[b];
+    keys[b] = key;
+  }
+}
@@ -1,6 +1,7 @@
 package ch.bbw.util.deserializers;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
@@ -9,10 +10,19 @@ import java.io.IOException;
 /**
  * Custom deserializer to convert JSON strings to numeric types.
  * Supports conversion to Byte, Integer, and Long.
+ * Plain integers are parsed straight from the parser's character buffer without creating a String;
+ * only values with a fraction, an exponent or other unusual notation go through decimal parsing and rounding.
  *
  * @param <T> the type of Number to deserialize to
  */
 public class StringToNumberDeserializer<T extends Number> extends JsonDeserializer<T> {
+
+  /**
+   * Longest digit sequence that is parsed directly. Up to this length every value is exactly representable
+   * as double, so the result equals the one of the rounding path.
+   */
+  private static final int MAX_FAST_DIGITS = 15;
+
   private final Class<T> targetType;
 
   /**
@@ -33,25 +43,86 @@ public class StringToNumberDeserializer<T extends Number> extends JsonDeserializ
    * @throws IOException if an I/O error occurs
    */
   @Override
-  @SuppressWarnings("unchecked")
   public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-    String value = p.getText();
+    JsonToken token = p.currentToken();
 
-    try {
-      double doubleValue = Double.parseDouble(value);
-
-      if (targetType == Byte.class) {
-        return (T) Byte.valueOf((byte) Math.round(doubleValue));
-      } else if (targetType == Integer.class) {
-        return (T) Integer.valueOf((int) Math.round(doubleValue));
-      } else if (targetType == Long.class) {
-        return (T) Long.valueOf(Math.round(doubleValue));
-      } else {
-        throw new UnsupportedOperationException("Unsupported target type: " + targetType);
+    if (token == JsonToken.VALUE_STRING) {
+      return parseCharacters(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+    } else if (token == JsonToken.VALUE_NUMBER_INT && p.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+      return convert(p.getLongValue());
+    } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+      return convert(Math.round(p.getDoubleValue()));
+    }
+
+    return parseDecimal(p.getText());
+  }
+
+  /**
+   * Parses an optionally signed integer from a character buffer, falling back to decimal parsing
+   * for any other notation.
+   *
+   * @param buffer the character buffer
+   * @param offset the offset of the value in the buffer
+   * @param length the length of the value
+   * @return the parsed number, or null if the value cannot be parsed
+   */
+  private T parseCharacters(char[] buffer, int offset, int length) {
+    int index = offset;
+    int end = offset + length;
+    boolean negative = false;
+
+    if (index < end && (buffer[index] == '-' || buffer[index] == '+')) {
+      negative = buffer[index] == '-';
+      index++;
+    }
+
+    int digits = end - index;
+    if (digits == 0 || digits > MAX_FAST_DIGITS) {
+      return parseDecimal(new String(buffer, offset, length));
+    }
+
+    long value = 0;
+    for (; index < end; index++) {
+      int digit = buffer[index] - '0';
+      if (digit < 0 || digit > 9) {
+        return parseDecimal(new String(buffer, offset, length));
       }
-    } catch (NumberFormatException e) {
+      value = value * 10 + digit;
+    }
+
+    return convert(negative ? -value : value);
+  }
+
+  /**
+   * Parses a value as decimal number and rounds it to the nearest integer.
+   *
+   * @param value the value to parse
+   * @return the rounded number, or null if the value cannot be parsed
+   */
+  private T parseDecimal(String value) {
+    try {
+      return convert(Math.round(Double.parseDouble(value)));
+    } catch (NumberFormatException | NullPointerException e) {
       return null;
     }
   }
-}
 
+  /**
+   * Converts a long to the target type, narrowing it like a primitive cast.
+   *
+   * @param value the value to convert
+   * @return the converted number
+   */
+  @SuppressWarnings("unchecked")
+  private T convert(long value) {
+    if (targetType == Byte.class) {
+      return (T) Byte.valueOf((byte) value);
+    } else if (targetType == Integer.class) {
+      return (T) Integer.valueOf((int) value);
+    } else if (targetType == Long.class) {
+      return (T) Long.valueOf(value);
+    } else {
+      throw new UnsupportedOperationException("Unsupported target type: " + targetType);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package ch.bbw.dataset;
+
+import ch.bbw.dtos.CityResponse;
+import ch.bbw.dtos.PopulationCountResponse;
+import ch.bbw.enums.SortOrder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountryCitiesTest {
+
+  private static final Integer[] YEARS = {null, 1995, 2005, 2020};
+
+  @Test
+  void pagesTraverseTheSortedCities() {
+    CityDataset dataset = CityDataset.of(cities());
+
+    for (SortOrder sortOrder : sortOrders()) {
+      for (Integer year : YEARS) {
+        for (int limit : new int[]{1, 2, 3, 100}) {
+          assertEquals(names(dataset.getCities("Testland", sortOrder, year)),
+              traverse(dataset, sortOrder, year, limit), sortOrder + " " + year + " " + limit);
+        }
+      }
+    }
+  }
+
+  @Test
+  void lastPageHasNoCursor() {
+    CityDataset dataset = CityDataset.of(cities());
+
+    CityPage page = dataset.getPage("Testland", SortOrder.NAME_ASC, null, null, 100);
+
+    assertEquals(7, page.cities().length);
+    assertEquals(7, page.total());
+    assertNull(page.next());
+  }
+
+  @Test
+  void cursorSurvivesRefreshedDataset() {
+    CityDataset dataset = CityDataset.of(cities());
+    CityPage first = dataset.getPage("Testland", SortOrder.POPULATION_DESC, null, null, 3);
+
+    // Insert a city ordered before the cursor and shift all city indexes
+    List<CityResponse> refreshed = new ArrayList<>(cities());
+    refreshed.add(0, city("Otherland", "Elsewhere", 2020, 1));
+    refreshed.add(city("Testland", "Newtown", 2020, 1_000_000));
+    CityDataset next = CityDataset.of(refreshed);
+
+    CityPage second = next.getPage("Testland", SortOrder.POPULATION_DESC, null,
+        CityCursor.decode(first.next().encode()), 100);
+
+    List<String> seen = new ArrayList<>(pageNames(first));
+    seen.addAll(pageNames(second));
+    List<String> expected = names(dataset.getCities("Testland", SortOrder.POPULATION_DESC, null));
+    assertEquals(expected, seen);
+  }
+
+  @Test
+  void cursorOfAnotherSortOrderOrYearIsRejected() {
+    CityDataset dataset = CityDataset.of(cities());
+    CityCursor cursor = dataset.getPage("Testland", SortOrder.NAME_ASC, null, null, 2).next();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> dataset.getPage("Testland", SortOrder.NAME_DESC, null, cursor, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> dataset.getPage("Testland", SortOrder.NAME_ASC, 2005, cursor, 2));
+  }
+
+  @Test
+  void summaryMergesSpellingsOfOneCountry() {
+    CityDataset dataset = CityDataset.of(List.of(city("USA", "Boston", 2020, 600),
+        city("United States", "Austin", 2020, 900), city("Testland", "Alpha", 2020, 50)));
+
+    Map<String, CountrySummary> summaries = dataset.summarize(
+        List.of("united states of america", "Nowhere", "Testland", "USA", "united states of america"), 1);
+
+    assertEquals(List.of("united states of america", "Testland", "USA"), List.copyOf(summaries.keySet()));
+    assertEquals(summaries.get("USA"), summaries.get("united states of america"));
+    assertEquals(2, summaries.get("USA").cityCount());
+    assertEquals(1500, summaries.get("USA").totalPopulation());
+    assertEquals("Austin", summaries.get("USA").topCities().get(0).getCity());
+    assertEquals(1, summaries.get("Testland").cityCount());
+  }
+
+  @Test
+  void yearOverYearGrowthIsAnnualizedFromEachCitysPreviousCount() {
+    CityDataset dataset = CityDataset.of(List.of(city("Testland", "Alpha", 2018, 100, 2020, 121),
+        city("Testland", "Beta", 2019, 300, 2020, 345), city("Testland", "Gamma", 2020, 1_000),
+        city("Testland", "Delta", 2015, 5_000)));
+
+    CountryAggregate aggregate = dataset.getAggregate("Testland");
+
+    assertEquals(2020, aggregate.latestYear());
+    assertEquals(0.75, aggregate.latestYearCoverage());
+    // Alpha grows 10% a year over two years, Beta 15% in one year, weighted 100 to 300
+    assertEquals(0.1375, aggregate.yearOverYearGrowth(), 1e-9);
+  }
+
+  @Test
+  void cursorRoundTripsThroughToken() {
+    CityCursor cursor = new CityCursor(SortOrder.YEAR_DESC, 2005, 1999, "Zürich", 42);
+
+    assertEquals(cursor, CityCursor.decode(cursor.encode()));
+    assertEquals(new CityCursor(null, null, 3, "Bern", 3),
+        CityCursor.decode(new CityCursor(null, null, 3, "Bern", 3).encode()));
+  }
+
+  @Test
+  void invalidTokenIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> CityCursor.decode("not a cursor"));
+    assertThrows(IllegalArgumentException.class, () -> CityCursor.decode("AA"));
+  }
+
+  /**
+   * Pages through the cities of Testland, passing each cursor on as token like a client does.
+   */
+  private static List<String> traverse(CityDataset dataset, SortOrder sortOrder, Integer year, int limit) {
+    List<String> names = new ArrayList<>();
+    CityPage page = dataset.getPage("Testland", sortOrder, year, null, limit);
+    names.addAll(pageNames(page));
+    while (page.next() != null) {
+      page = dataset.getPage("Testland", sortOrder, year, CityCursor.decode(page.next().encode()), limit);
+      names.addAll(pageNames(page));
+      assertTrue(names.size() <= page.total(), "Pages repeat cities");
+    }
+    return names;
+  }
+
+  private static List<String> pageNames(CityPage page) {
+    return Arrays.stream(page.cities()).mapToObj(city -> page.columns().view(city).getCity()).toList();
+  }
+
+  private static List<String> names(List<CityResponse> cities) {
+    return cities.stream().map(CityResponse::getCity).toList();
+  }
+
+  private static List<SortOrder> sortOrders() {
+    List<SortOrder> sortOrders = new ArrayList<>(Arrays.asList(SortOrder.values()));
+    sortOrders.add(null);
+    return sortOrders;
+  }
+
+  /**
+   * Cities with ties in population and year, and one without any population count.
+   */
+  private static List<CityResponse> cities() {
+    return List.of(
+        city("Testland", "Bern", 2000, 140_000, 2020, 145_000),
+        city("Otherland", "Faraway", 2020, 50_000),
+        city("Testland", "Aarau", 1990, 20_000, 2020, 21_000),
+        city("Testland", "Chur", 2000, 35_000),
+        city("Testland", "Davos", 2020, 21_000),
+        city("Testland", "Emmen"),
+        city("Testland", "Basel", 1990, 170_000, 2010, 172_000),
+        city("Testland", "Genf", 2000, 140_000, 2020, 200_000));
+  }
+
+  /**
+   * Creates a city from alternating years and population values.
+   */
+  private static CityResponse city(String country, String name, long... yearsAndValues) {
+    CityResponse city = new CityResponse();
+    city.setCountry(country);
+    city.setCity(name);
+    for (int i = 0; i < yearsAndValues.length; i += 2) {
+      PopulationCountResponse count = new PopulationCountResponse();
+      count.setYear((int) yearsAndValues[i]);
+      count.setValue(yearsAndValues[i + 1]);
+      city.getPopulationCounts().add(count);
+    }
+    return city;
+  }
+}
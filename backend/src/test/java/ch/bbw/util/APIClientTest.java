@@ -0,0 +1,235 @@
+package ch.bbw.util;
+
+import ch.bbw.config.UpstreamProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the retries, hedging and circuit breaker of the API client against an in-process stub server that answers
+ * with scripted statuses and delays.
+ */
+class APIClientTest {
+
+  /**
+   * A scripted answer of the stub server.
+   *
+   * @param status the status code
+   * @param delay  the time to wait before answering
+   */
+  private record Answer(int status, Duration delay) {
+  }
+
+  private static final Answer OK = new Answer(200, Duration.ZERO);
+  private static final Answer UNAVAILABLE = new Answer(503, Duration.ZERO);
+  private static final int WARM_UP = 40;
+
+  private static final Queue<Answer> script = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger received = new AtomicInteger();
+  private static ExecutorService serverExecutor;
+  private static HttpServer server;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private HttpClient httpClient;
+
+  @BeforeAll
+  static void startServer() throws IOException {
+    System.setProperty("sun.net.httpserver.nodelay", "true"); // Avoid delayed ACKs adding 40 ms to every request
+    serverExecutor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", APIClientTest::answer);
+    server.setExecutor(serverExecutor);
+    server.start();
+  }
+
+  @AfterAll
+  static void stopServer() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @BeforeEach
+  void resetServer() {
+    script.clear();
+    received.set(0);
+  }
+
+  @AfterEach
+  void stopClient() {
+    if (httpClient != null) {
+      httpClient.shutdownNow();
+    }
+  }
+
+  @Test
+  void retriesServerErrorOfIdempotentRequest() throws Exception {
+    APIClient client = client(upstream());
+    script.add(UNAVAILABLE);
+
+    assertEquals(Map.of("request", 2), client.get("data", Map.of(), Map.class));
+    assertEquals(2, received.get());
+    assertEquals(1, meterRegistry.counter("upstream.retries", "endpoint", "data").count());
+  }
+
+  @Test
+  void doesNotRetryNonIdempotentRequest() {
+    APIClient client = client(upstream());
+    script.add(UNAVAILABLE);
+
+    assertThrows(RuntimeException.class, () -> client.post("data", Map.of(), "{}", Map.class));
+    assertEquals(1, received.get());
+  }
+
+  @Test
+  void slowRequestIsHedgedAndFastResponseWins() throws Exception {
+    UpstreamProperties upstream = hedged();
+    APIClient client = client(upstream);
+    warmUp(client);
+    script.add(new Answer(200, Duration.ofSeconds(5)));
+
+    long start = System.nanoTime();
+    Object response = client.get("data", Map.of(), Map.class);
+
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+    assertEquals(Map.of("request", WARM_UP + 2), response);
+    assertEquals(1, meterRegistry.counter("upstream.hedges", "endpoint", "data").count());
+  }
+
+  @Test
+  void serverErrorOfHedgeDoesNotWinOverLaterSuccess() throws Exception {
+    UpstreamProperties upstream = hedged();
+    APIClient client = client(upstream);
+    warmUp(client);
+    script.add(new Answer(200, Duration.ofSeconds(1)));
+    script.add(UNAVAILABLE);
+
+    Object response = client.get("data", Map.of(), Map.class);
+
+    assertEquals(Map.of("request", WARM_UP + 1), response);
+    assertEquals(1, meterRegistry.counter("upstream.hedges", "endpoint", "data").count());
+  }
+
+  @Test
+  void consecutiveFailuresOpenCircuit() {
+    UpstreamProperties upstream = upstream();
+    upstream.getRetry().setMaxAttempts(1);
+    upstream.getCircuitBreaker().setFailureThreshold(3);
+    upstream.getCircuitBreaker().setOpenDuration(Duration.ofHours(1));
+    APIClient client = client(upstream);
+    for (int i = 0; i < 3; i++) {
+      script.add(UNAVAILABLE);
+    }
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(RuntimeException.class, () -> client.get("data", Map.of(), Map.class));
+    }
+    assertThrows(CircuitOpenException.class, () -> client.get("data", Map.of(), Map.class));
+    assertEquals(3, received.get());
+  }
+
+  @Test
+  void snapshotKeepsServingLastDatasetWhenRefreshFails() throws Exception {
+    UpstreamProperties upstream = upstream();
+    upstream.getRetry().setMaxAttempts(1);
+    APIClient client = client(upstream);
+    try (RefreshingSnapshot<Object> snapshot = new RefreshingSnapshot<>("test",
+        previous -> client.getAsync("data", Map.of(), Object.class), Duration.ofHours(1))) {
+      Object loaded = snapshot.get();
+      script.add(UNAVAILABLE);
+
+      snapshot.refreshAsync();
+      long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (snapshot.getStaleSince() == null && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+
+      assertNotNull(snapshot.getStaleSince());
+      assertSame(loaded, snapshot.get());
+      assertEquals(2, received.get());
+    }
+  }
+
+  /**
+   * Returns an upstream configuration pointing at the stub server, with short retry delays and hedging disabled.
+   */
+  private UpstreamProperties upstream() {
+    UpstreamProperties upstream = new UpstreamProperties();
+    upstream.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/api");
+    upstream.getRetry().setBaseDelay(Duration.ofMillis(10));
+    upstream.getHedge().setEnabled(false);
+    return upstream;
+  }
+
+  /**
+   * Returns an upstream configuration that hedges after 100 ms and does not retry, so only hedging can recover.
+   */
+  private UpstreamProperties hedged() {
+    UpstreamProperties upstream = upstream();
+    upstream.getRetry().setMaxAttempts(1);
+    upstream.getHedge().setEnabled(true);
+    upstream.getHedge().setMinDelay(Duration.ofMillis(100));
+    upstream.getHedge().setMinSamples(WARM_UP / 2);
+    return upstream;
+  }
+
+  private APIClient client(UpstreamProperties upstream) {
+    httpClient = APIClient.newHttpClient(upstream, null, meterRegistry);
+    return new APIClient(upstream, httpClient, ForkJoinPool.commonPool(), meterRegistry);
+  }
+
+  /**
+   * Sends enough fast requests for the client to estimate the latency percentile hedging is based on,
+   * twice as many as required so that a slow first request does not make up the percentile.
+   */
+  private static void warmUp(APIClient client) throws Exception {
+    for (int i = 0; i < WARM_UP; i++) {
+      client.get("data?warmUp=" + i, Map.of(), Map.class);
+    }
+  }
+
+  /**
+   * Answers a request with the next scripted answer, or a fast 200 once the script is exhausted.
+   * Successful bodies hold the number of the request.
+   */
+  private static void answer(HttpExchange exchange) throws IOException {
+    int request = received.incrementAndGet();
+    Answer answer = script.poll();
+    if (answer == null) {
+      answer = OK;
+    }
+
+    try (exchange) {
+      Thread.sleep(answer.delay().toMillis());
+      byte[] body = (answer.status() == 200 ? "{\"request\":" + request + "}" : "unavailable")
+          .getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(answer.status(), body.length);
+      exchange.getResponseBody().write(body);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
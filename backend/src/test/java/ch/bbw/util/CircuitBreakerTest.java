@@ -0,0 +1,87 @@
+package ch.bbw.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+  @Test
+  void opensAfterThresholdOfConsecutiveFailures() {
+    CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofHours(1));
+
+    breaker.onFailure();
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void successResetsFailureCount() {
+    CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofHours(1));
+
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    breaker.onFailure();
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void letsSingleTrialCallThroughAfterOpenDuration() {
+    CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO);
+    breaker.onFailure();
+
+    assertTrue(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void successfulTrialCallClosesCircuit() {
+    CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ZERO);
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.tryAcquire();
+
+    breaker.onSuccess();
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void failedTrialCallOpensCircuitAgain() {
+    CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(200));
+    breaker.onFailure();
+    assertFalse(breaker.tryAcquire());
+
+    waitFor(Duration.ofMillis(250));
+    assertTrue(breaker.tryAcquire());
+    breaker.onFailure();
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  private static void waitFor(Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
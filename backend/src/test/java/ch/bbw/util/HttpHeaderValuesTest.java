@@ -0,0 +1,49 @@
+package ch.bbw.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpHeaderValuesTest {
+
+  @Test
+  void ifNoneMatchUsesWeakComparison() {
+    assertTrue(HttpHeaderValues.noneMatchFails("W/\"abc\"", "W/\"abc\""));
+    assertTrue(HttpHeaderValues.noneMatchFails("\"abc\"", "W/\"abc\""));
+    assertTrue(HttpHeaderValues.noneMatchFails("W/\"abc\"", "\"abc\""));
+    assertFalse(HttpHeaderValues.noneMatchFails("W/\"abd\"", "W/\"abc\""));
+    assertFalse(HttpHeaderValues.noneMatchFails(null, "W/\"abc\""));
+  }
+
+  @Test
+  void ifNoneMatchAcceptsListsAndWildcard() {
+    assertTrue(HttpHeaderValues.noneMatchFails("\"old\", W/\"abc\" ,\"other\"", "W/\"abc\""));
+    assertFalse(HttpHeaderValues.noneMatchFails("\"old\", \"other\"", "W/\"abc\""));
+    assertTrue(HttpHeaderValues.noneMatchFails("*", "\"abc.png\""));
+  }
+
+  @Test
+  void acceptEncodingHonoursQualityValues() {
+    assertTrue(HttpHeaderValues.acceptsEncoding("gzip, deflate, br", "gzip"));
+    assertTrue(HttpHeaderValues.acceptsEncoding("br;q=1.0, GZIP;q=0.5", "gzip"));
+    assertTrue(HttpHeaderValues.acceptsEncoding("x-gzip", "gzip"));
+    assertFalse(HttpHeaderValues.acceptsEncoding("gzip;q=0, deflate", "gzip"));
+    assertFalse(HttpHeaderValues.acceptsEncoding("gzip; q=0.000", "gzip"));
+    assertFalse(HttpHeaderValues.acceptsEncoding("identity", "gzip"));
+    assertFalse(HttpHeaderValues.acceptsEncoding(null, "gzip"));
+  }
+
+  @Test
+  void acceptEncodingDoesNotMatchOtherTokensContainingTheCoding() {
+    assertFalse(HttpHeaderValues.acceptsEncoding("nogzip, gzipped", "gzip"));
+  }
+
+  @Test
+  void wildcardAppliesToUnlistedCodings() {
+    assertTrue(HttpHeaderValues.acceptsEncoding("*", "gzip"));
+    assertFalse(HttpHeaderValues.acceptsEncoding("*;q=0", "gzip"));
+    assertTrue(HttpHeaderValues.acceptsEncoding("gzip, *;q=0", "gzip"));
+    assertFalse(HttpHeaderValues.acceptsEncoding("gzip;q=0, *", "gzip"));
+  }
+}
@@ -0,0 +1,49 @@
+package ch.bbw.util;
+
+import ch.bbw.dtos.CityResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonArrayStreamerTest {
+
+  private final JsonArrayStreamer streamer = new JsonArrayStreamer(new ObjectMapper());
+
+  @Test
+  void skipsElementsThatAreNotObjects() throws IOException {
+    List<String> cities = new ArrayList<>();
+
+    int accepted = stream("""
+        {"error": false, "data": [{"city": "Bern"}, null, [1, {"city": "Nested"}], 3, "text", {"city": "Chur"}],
+         "msg": "ok"}""", JsonArrayStreamer.ElementFilter.acceptAll(), cities);
+
+    assertEquals(2, accepted);
+    assertEquals(List.of("Bern", "Chur"), cities);
+  }
+
+  @Test
+  void bindsOnlyElementsMatchingTheFilter() throws IOException {
+    List<String> cities = new ArrayList<>();
+
+    int accepted = stream("""
+        {"other": [{"city": "Ignored", "country": "Chile"}],
+         "data": [{"city": "Bern", "country": "Switzerland"}, {"city": "Lima", "country": "Peru"},
+                  {"country": "Switzerland", "city": "Chur"}]}""",
+        new JsonArrayStreamer.ElementFilter("country", "Switzerland"::equals), cities);
+
+    assertEquals(2, accepted);
+    assertEquals(List.of("Bern", "Chur"), cities);
+  }
+
+  private int stream(String json, JsonArrayStreamer.ElementFilter filter, List<String> cities) throws IOException {
+    return streamer.stream(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "data", CityResponse.class,
+        filter, city -> cities.add(city.getCity()));
+  }
+}